@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.data;
+
+import ch.kinet.Json;
+import ch.kinet.JsonObject;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Describes a change of data belonging to a school year. Change events are emitted by {@link PensenData} and allow
+ * clients to update their views without reloading them.
+ */
+public final class ChangeEvent implements Json {
+
+    public enum Action {
+        Created, Updated, Deleted
+    }
+
+    public enum Kind {
+        Course, Workload
+    }
+
+    private static final String JSON_ACTION = "action";
+    private static final String JSON_ID = "id";
+    private static final String JSON_KIND = "kind";
+    private static final String JSON_SCHOOL_YEAR = "schoolYear";
+    private final Action action;
+    private final Set<Division> divisions;
+    private final int id;
+    private final Kind kind;
+    private final SchoolYear schoolYear;
+
+    static ChangeEvent course(Course course, Action action) {
+        Set<Division> previous = course.takePreviousDivisions();
+        return new ChangeEvent(
+            Kind.Course, action, course.getId(), course.getSchoolYear(),
+            scope(course.divisions(), action == Action.Created ? null : previous)
+        );
+    }
+
+    static ChangeEvent workload(Employment employment) {
+        return new ChangeEvent(
+            Kind.Workload, Action.Updated, employment.getTeacher().getId(), employment.getSchoolYear(),
+            scope(Stream.of(employment.getDivision()), employment.takePreviousDivisions())
+        );
+    }
+
+    /**
+     * Returns the divisions for which a change is relevant. An object moved to other divisions is relevant for its
+     * previous and its current divisions, so that it disappears from the old views and appears in the new ones. The
+     * empty set stands for all divisions.
+     *
+     * @param current the current divisions of the object
+     * @param previous the divisions before the change or <code>null</code> if they have not changed
+     * @return the relevant divisions
+     */
+    private static Set<Division> scope(Stream<Division> current, Set<Division> previous) {
+        Set<Division> result = current.filter(division -> division != null).collect(Collectors.toSet());
+        if (previous == null) {
+            return result;
+        }
+
+        if (result.isEmpty() || previous.isEmpty()) {
+            // the object is or was relevant for all divisions
+            return Collections.emptySet();
+        }
+
+        result.addAll(previous);
+        return result;
+    }
+
+    private ChangeEvent(Kind kind, Action action, int id, SchoolYear schoolYear, Set<Division> divisions) {
+        this.action = action;
+        this.divisions = divisions;
+        this.id = id;
+        this.kind = kind;
+        this.schoolYear = schoolYear;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    /**
+     * Returns the id of the changed object. For workload changes, this is the id of the teacher.
+     *
+     * @return the id of the changed object
+     */
+    public int getId() {
+        return id;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public SchoolYear getSchoolYear() {
+        return schoolYear;
+    }
+
+    /**
+     * Checks if the event is relevant for a view of a school year and division. Events for objects without division,
+     * e.g. cross-class courses, are relevant for all divisions.
+     *
+     * @param schoolYear the school year of the view
+     * @param division the division of the view or <code>null</code> for all divisions
+     * @return <code>true</code> if the event is relevant
+     */
+    public boolean matches(SchoolYear schoolYear, Division division) {
+        if (!this.schoolYear.equals(schoolYear)) {
+            return false;
+        }
+
+        return division == null || divisions.isEmpty() || divisions.contains(division);
+    }
+
+    @Override
+    public JsonObject toJsonTerse() {
+        JsonObject result = JsonObject.create();
+        result.put(JSON_KIND, kind.name().toLowerCase());
+        result.put(JSON_ACTION, action.name().toLowerCase());
+        result.put(JSON_ID, id);
+        result.put(JSON_SCHOOL_YEAR, schoolYear.getId());
+        return result;
+    }
+
+    @Override
+    public JsonObject toJsonVerbose() {
+        return toJsonTerse();
+    }
+}
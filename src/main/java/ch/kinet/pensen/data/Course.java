@@ -23,13 +23,15 @@ import ch.kinet.Util;
 import ch.kinet.reflect.Persistence;
 import ch.kinet.reflect.PropertyInitializer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public final class Course extends Entity {
+public final class Course extends Entity implements JsonProjection {
 
     public static final String DB_CANCELLED = "Cancelled";
     public static final String DB_COMMENTS = "Comments";
@@ -69,6 +71,7 @@ public final class Course extends Entity {
     private Grade grade;
     private double lessons1;
     private double lessons2;
+    private Set<Division> previousDivisions;
     private boolean smallGroup1;
     private boolean smallGroup2;
     private List<SchoolClass> schoolClasses = new ArrayList<>();
@@ -202,6 +205,15 @@ public final class Course extends Entity {
         return cancelled;
     }
 
+    /**
+     * Checks if the course has lessons without a teacher in any semester.
+     *
+     * @return <code>true</code> if the course is open
+     */
+    public boolean isOpen() {
+        return !cancelled && (teachers1.isEmpty() && lessons1 > 0 || teachers2.isEmpty() && lessons2 > 0);
+    }
+
     public double lessons(SemesterEnum semester) {
         if (cancelled) {
             return 0d;
@@ -286,6 +298,10 @@ public final class Course extends Entity {
 
     @Persistence(ignore = true)
     public void setSchoolClasses(Stream<SchoolClass> schoolClasses) {
+        if (previousDivisions == null) {
+            previousDivisions = divisions().filter(division -> division != null).collect(Collectors.toSet());
+        }
+
         this.schoolClasses = schoolClasses.collect(Collectors.toList());
     }
 
@@ -327,28 +343,76 @@ public final class Course extends Entity {
     }
 
     @Override
-    public JsonObject toJsonTerse() {
-        double open1 = !cancelled && teachers1.isEmpty() ? lessons1 : 0;
-        double open2 = !cancelled && teachers2.isEmpty() ? lessons2 : 0;
+    public JsonObject toJson(Predicate<String> fields, boolean verbose) {
         JsonObject result = super.toJsonTerse();
-        result.put(JSON_CANCELLED, cancelled);
-        result.put(JSON_COMMENTS, comments);
-        result.putTerse(JSON_CURRICULUM, curriculum);
-        result.putTerse(JSON_GRADE, grade);
-        result.put(JSON_LESSONS_1, lessons1);
-        result.put(JSON_LESSONS_2, lessons2);
-        result.put(JSON_SMALL_GROUP_1, smallGroup1);
-        result.put(JSON_SMALL_GROUP_2, smallGroup2);
-        result.putTerse(JSON_SCHOOL_YEAR, schoolYear);
-        result.put("open1", open1);
-        result.put("open2", open2);
-        result.put(JSON_TEACHERS_1, JsonArray.createTerse(teachers1.stream()));
-        result.put(JSON_TEACHERS_2, JsonArray.createTerse(teachers2.stream()));
-        result.put(JSON_SCHOOL_CLASSES, JsonArray.createTerse(schoolClasses.stream()));
-        result.putTerse(JSON_SUBJECT, subject);
+        if (fields.test(JSON_CANCELLED)) {
+            result.put(JSON_CANCELLED, cancelled);
+        }
+
+        if (fields.test(JSON_COMMENTS)) {
+            result.put(JSON_COMMENTS, comments);
+        }
+
+        if (fields.test(JSON_CURRICULUM)) {
+            result.putTerse(JSON_CURRICULUM, curriculum);
+        }
+
+        if (fields.test(JSON_GRADE)) {
+            result.putTerse(JSON_GRADE, grade);
+        }
+
+        if (fields.test(JSON_LESSONS_1)) {
+            result.put(JSON_LESSONS_1, lessons1);
+        }
+
+        if (fields.test(JSON_LESSONS_2)) {
+            result.put(JSON_LESSONS_2, lessons2);
+        }
+
+        if (fields.test(JSON_SMALL_GROUP_1)) {
+            result.put(JSON_SMALL_GROUP_1, smallGroup1);
+        }
+
+        if (fields.test(JSON_SMALL_GROUP_2)) {
+            result.put(JSON_SMALL_GROUP_2, smallGroup2);
+        }
+
+        if (fields.test(JSON_SCHOOL_YEAR)) {
+            result.putTerse(JSON_SCHOOL_YEAR, schoolYear);
+        }
+
+        if (fields.test("open1")) {
+            result.put("open1", !cancelled && teachers1.isEmpty() ? lessons1 : 0);
+        }
+
+        if (fields.test("open2")) {
+            result.put("open2", !cancelled && teachers2.isEmpty() ? lessons2 : 0);
+        }
+
+        if (fields.test(JSON_TEACHERS_1)) {
+            result.put(JSON_TEACHERS_1, JsonArray.createTerse(teachers1.stream()));
+        }
+
+        if (fields.test(JSON_TEACHERS_2)) {
+            result.put(JSON_TEACHERS_2, JsonArray.createTerse(teachers2.stream()));
+        }
+
+        if (fields.test(JSON_SCHOOL_CLASSES)) {
+            result.put(JSON_SCHOOL_CLASSES, JsonArray.createTerse(schoolClasses.stream()));
+        }
+
+        if (fields.test(JSON_SUBJECT)) {
+            result.putTerse(JSON_SUBJECT, subject);
+        }
+
         return result;
     }
 
+    @Override
+    public JsonObject toJsonTerse() {
+        return toJson(field -> true, false);
+    }
+
     @Override
     public JsonObject toJsonVerbose() {
         JsonObject result = toJsonTerse();
@@ -367,6 +431,18 @@ public final class Course extends Entity {
         return result.toString();
     }
 
+    /**
+     * Returns the divisions the course belonged to before its school classes were changed and forgets them, so that
+     * the next change event starts from the current divisions.
+     *
+     * @return the previous divisions or <code>null</code> if the school classes have not been changed
+     */
+    Set<Division> takePreviousDivisions() {
+        Set<Division> result = previousDivisions;
+        previousDivisions = null;
+        return result == null ? null : Collections.unmodifiableSet(result);
+    }
+
     Course resolve(Context context) {
         schoolClasses = schoolClassIds.stream().map(id -> context.getSchoolClassById(id)).sorted().collect(Collectors.toList());
         teachers1 = teacherIds1.stream().map(id -> context.getTeacherById(id)).sorted().collect(Collectors.toList());
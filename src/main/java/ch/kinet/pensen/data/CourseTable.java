@@ -28,6 +28,11 @@ import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Table of the courses of a school year by subject and school class. A course table is not modified after it has been
+ * created and may therefore be shared between threads. {@link PensenData} caches course tables until the courses,
+ * school classes or subjects change.
+ */
 public class CourseTable implements Json {
 
     private static final String JSON_COURSES = "courses";
@@ -36,18 +41,21 @@ public class CourseTable implements Json {
     private static final String JSON_SCHOOL_CLASSES = "schoolClasses";
     private static final String JSON_SUBJECT = "subject";
     private final List<Course> courseList = new ArrayList<>();
+    private volatile JsonObject json;
     private SortedMap<Subject, Map<SchoolClass, Entry>> map;
     private final List<SchoolClass> schoolClassList;
     private final List<Subject> subjectList;
+    private final long version;
 
-    public static CourseTable create(Stream<SchoolClass> schoolClasses, Stream<Subject> subjects,
-                                     Stream<Course> courses) {
-        CourseTable result = new CourseTable(subjects, schoolClasses);
+    static CourseTable create(long version, Stream<SchoolClass> schoolClasses, Stream<Subject> subjects,
+                              Stream<Course> courses) {
+        CourseTable result = new CourseTable(version, subjects, schoolClasses);
         courses.forEachOrdered(result::addCourse);
         return result;
     }
 
-    private CourseTable(Stream<Subject> subjects, Stream<SchoolClass> schoolClasses) {
+    private CourseTable(long version, Stream<Subject> subjects, Stream<SchoolClass> schoolClasses) {
+        this.version = version;
         map = new TreeMap<>();
         schoolClassList = schoolClasses.collect(Collectors.toList());
         subjectList = subjects.collect(Collectors.toList());
@@ -75,8 +83,31 @@ public class CourseTable implements Json {
         return subjectList.stream();
     }
 
+    /**
+     * Returns the JSON representation of the table. The representation is built once and shared, it must not be
+     * modified.
+     */
     @Override
     public JsonObject toJsonTerse() {
+        JsonObject result = json;
+        if (result == null) {
+            result = buildJson();
+            json = result;
+        }
+
+        return result;
+    }
+
+    @Override
+    public JsonObject toJsonVerbose() {
+        return toJsonTerse();
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    private JsonObject buildJson() {
         JsonObject result = JsonObject.create();
         result.put(JSON_SCHOOL_CLASSES, JsonArray.createTerse(schoolClassList.stream()));
 
@@ -102,11 +133,6 @@ public class CourseTable implements Json {
         return result;
     }
 
-    @Override
-    public JsonObject toJsonVerbose() {
-        return toJsonTerse();
-    }
-
     private void addCourse(Course course) {
         Map<SchoolClass, Entry> schoolClassMap = map.get(course.getSubject());
         if (schoolClassMap == null) {
@@ -20,8 +20,10 @@ import ch.kinet.Entity;
 import ch.kinet.JsonObject;
 import ch.kinet.Util;
 import ch.kinet.reflect.PropertyInitializer;
+import java.util.Set;
+import java.util.function.Predicate;
 
-public final class Employment extends Entity {
+public final class Employment extends Entity implements JsonProjection {
 
     public static final String DB_CLOSING_BALANCE = "ClosingBalance";
     public static final String DB_COMMENTS = "Comments";
@@ -56,6 +58,7 @@ public final class Employment extends Entity {
     private double openingBalance;
     private double payment1;
     private double payment2;
+    private Division previousDivision;
     private boolean temporary;
 
     @PropertyInitializer({DB_ID, DB_SCHOOL_YEAR, DB_TEACHER})
@@ -141,6 +144,11 @@ public final class Employment extends Entity {
     }
 
     public void setDivision(Division division) {
+        // the division set while loading is not a change
+        if (previousDivision == null && this.division != null && !this.division.equals(division)) {
+            previousDivision = this.division;
+        }
+
         this.division = division;
     }
 
@@ -168,24 +176,77 @@ public final class Employment extends Entity {
         this.temporary = temporary;
     }
 
+    /**
+     * Returns the division the employment belonged to before its division was changed and forgets it, so that the
+     * next change event starts from the current division.
+     *
+     * @return the previous division or <code>null</code> if the division has not been changed
+     */
+    Set<Division> takePreviousDivisions() {
+        Division result = previousDivision;
+        previousDivision = null;
+        return result == null ? null : Set.of(result);
+    }
+
     @Override
-    public JsonObject toJsonTerse() {
+    public JsonObject toJson(Predicate<String> fields, boolean verbose) {
         JsonObject result = super.toJsonTerse();
-        result.put(JSON_CHANGE, closingBalance - openingBalance);
-        result.put(JSON_CLOSING_BALANCE, closingBalance);
-        result.put(JSON_COMMENTS, comments);
-        result.putTerse(JSON_DIVISION, division);
-        result.put(JSON_EMPLOYMENT_MAX, employmentMax);
-        result.put(JSON_EMPLOYMENT_MIN, employmentMin);
-        result.put(JSON_OPENING_BALANCE, openingBalance);
-        result.put(JSON_PAYMENT1, payment1);
-        result.put(JSON_PAYMENT2, payment2);
-        result.putTerse(JSON_SCHOOL_YEAR, schoolYear);
-        result.putTerse(JSON_TEACHER, teacher);
-        result.put(JSON_TEMPORARY, temporary);
+        if (fields.test(JSON_CHANGE)) {
+            result.put(JSON_CHANGE, closingBalance - openingBalance);
+        }
+
+        if (fields.test(JSON_CLOSING_BALANCE)) {
+            result.put(JSON_CLOSING_BALANCE, closingBalance);
+        }
+
+        if (fields.test(JSON_COMMENTS)) {
+            result.put(JSON_COMMENTS, comments);
+        }
+
+        if (fields.test(JSON_DIVISION)) {
+            result.putTerse(JSON_DIVISION, division);
+        }
+
+        if (fields.test(JSON_EMPLOYMENT_MAX)) {
+            result.put(JSON_EMPLOYMENT_MAX, employmentMax);
+        }
+
+        if (fields.test(JSON_EMPLOYMENT_MIN)) {
+            result.put(JSON_EMPLOYMENT_MIN, employmentMin);
+        }
+
+        if (fields.test(JSON_OPENING_BALANCE)) {
+            result.put(JSON_OPENING_BALANCE, openingBalance);
+        }
+
+        if (fields.test(JSON_PAYMENT1)) {
+            result.put(JSON_PAYMENT1, payment1);
+        }
+
+        if (fields.test(JSON_PAYMENT2)) {
+            result.put(JSON_PAYMENT2, payment2);
+        }
+
+        if (fields.test(JSON_SCHOOL_YEAR)) {
+            result.putTerse(JSON_SCHOOL_YEAR, schoolYear);
+        }
+
+        if (fields.test(JSON_TEACHER)) {
+            result.putTerse(JSON_TEACHER, teacher);
+        }
+
+        if (fields.test(JSON_TEMPORARY)) {
+            result.put(JSON_TEMPORARY, temporary);
+        }
+
         return result;
     }
 
+    @Override
+    public JsonObject toJsonTerse() {
+        return toJson(field -> true, false);
+    }
+
     @Override
     protected int doCompare(Entity entity) {
         int result = 0;
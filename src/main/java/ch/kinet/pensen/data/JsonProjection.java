@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2022 - 2024 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.data;
+
+import ch.kinet.JsonObject;
+import java.util.function.Predicate;
+
+/**
+ * Is implemented by entities that can serialise selected JSON properties without building the others. List requests
+ * with a <code>fields</code> parameter use it to skip nested arrays and computed values that are not requested.
+ */
+public interface JsonProjection {
+
+    /**
+     * Returns the JSON representation of the entity restricted to the selected properties. The ID is always included.
+     *
+     * @param fields selects the properties to include
+     * @param verbose <code>true</code> if the properties are selected from the verbose representation
+     * @return the JSON representation
+     */
+    JsonObject toJson(Predicate<String> fields, boolean verbose);
+}
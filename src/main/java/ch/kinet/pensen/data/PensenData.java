@@ -20,6 +20,7 @@ import ch.kinet.BaseData;
 import ch.kinet.Binary;
 import ch.kinet.DataManager;
 import ch.kinet.Entities;
+import ch.kinet.Entity;
 import ch.kinet.JsonArray;
 import ch.kinet.PropertyMap;
 import ch.kinet.SetComparison;
@@ -32,24 +33,49 @@ import ch.kinet.sql.Condition;
 import ch.kinet.sql.Connection;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public final class PensenData extends BaseData implements Context {
 
+    // entities referenced by lesson table entries
+    private static final Set<Class<? extends Entity>> LESSON_TABLE_REFERENCES = Set.of(
+        Curriculum.class, Division.class, Grade.class, Subject.class
+    );
+    // entities whose representation is part of courses, course tables and workloads of every school year
+    private static final Set<Class<? extends Entity>> REFERENCED_ENTITIES = Set.of(
+        Curriculum.class, Division.class, Grade.class, SchoolClass.class, Subject.class, Teacher.class
+    );
     private final Entities<Account> accounts = Entities.create();
     private final Entities<CalculationMode> calculationModes = Entities.create();
+    private final List<Consumer<ChangeEvent>> changeListeners = new CopyOnWriteArrayList<>();
+    private final Map<Integer, Map<String, CourseTable>> courseTables = new ConcurrentHashMap<>();
     private final Entities<Curriculum> curriculums = Entities.create();
+    private final RecordingConnection db = new RecordingConnection(
+        this::getConnection, Configuration.getInstance().getDbMaxConcurrency()
+    );
+    private final ThreadLocal<Map<Integer, Employment>> deferredBalances = new ThreadLocal<>();
+    private final ThreadLocal<List<Runnable>> deferredChanges = new ThreadLocal<>();
+    private final ThreadLocal<List<ChangeEvent>> deferredEvents = new ThreadLocal<>();
     private final Entities<Division> divisions = Entities.create();
     private final Entities<Gender> genders = Entities.create();
     private final Entities<Grade> grades = Entities.create();
+    private final Map<String, List<LessonTableEntry>> lessonTableEntries = new ConcurrentHashMap<>();
+    private final AtomicLong lessonTableVersion = new AtomicLong();
     private final Lookup<LessonType> lessonTypes = Lookup.create();
-    private final Object lock = new Object();
     private final Entities<PayrollType> payrollTypes = Entities.create();
     private final Entities<PoolType> poolTypes = Entities.create();
     private final Entities<PostingType> postingTypes = Entities.create();
@@ -60,6 +86,9 @@ public final class PensenData extends BaseData implements Context {
     private final Entities<SubjectType> subjectTypes = Entities.create();
     private final Entities<Teacher> teachers = Entities.create();
     private final Entities<ThesisType> thesisTypes = Entities.create();
+    private final Map<Class<? extends Entity>, AtomicLong> entityVersions = new ConcurrentHashMap<>();
+    private final AtomicLong referenceVersion = new AtomicLong();
+    private final Map<Integer, AtomicLong> schoolYearVersions = new ConcurrentHashMap<>();
     private final String schema;
     private Map<String, Account> accountMap = new HashMap<>();
 
@@ -96,17 +125,17 @@ public final class PensenData extends BaseData implements Context {
 
     @Override
     protected void doInitData() {
-        subjectCategories.addAll(getConnection().selectAll(schema, SubjectCategory.class));
-        calculationModes.addAll(getConnection().selectAll(schema, CalculationMode.class));
-        divisions.addAll(getConnection().selectAll(schema, Division.class));
-        genders.addAll(getConnection().selectAll(schema, Gender.class));
-        lessonTypes.addAll(getConnection().selectAll(schema, LessonType.class));
-        payrollTypes.addAll(getConnection().selectAll(schema, PayrollType.class));
-        poolTypes.addAll(getConnection().selectAll(schema, PoolType.class));
-        postingTypes.addAll(getConnection().selectAll(schema, PostingType.class));
-        schoolYears.addAll(getConnection().selectAll(schema, SchoolYear.class));
-        thesisTypes.addAll(getConnection().selectAll(schema, ThesisType.class));
-        getConnection().selectAll(schema, WeeklyLessons.class).forEachOrdered(item -> {
+        subjectCategories.addAll(db.selectAll(schema, SubjectCategory.class));
+        calculationModes.addAll(db.selectAll(schema, CalculationMode.class));
+        divisions.addAll(db.selectAll(schema, Division.class));
+        genders.addAll(db.selectAll(schema, Gender.class));
+        lessonTypes.addAll(db.selectAll(schema, LessonType.class));
+        payrollTypes.addAll(db.selectAll(schema, PayrollType.class));
+        poolTypes.addAll(db.selectAll(schema, PoolType.class));
+        postingTypes.addAll(db.selectAll(schema, PostingType.class));
+        schoolYears.addAll(db.selectAll(schema, SchoolYear.class));
+        thesisTypes.addAll(db.selectAll(schema, ThesisType.class));
+        db.selectAll(schema, WeeklyLessons.class).forEachOrdered(item -> {
             item.getSchoolYear().putWeeklyLessons(item.getPayrollType(), item.getLessons());
         });
 
@@ -117,26 +146,36 @@ public final class PensenData extends BaseData implements Context {
             previous = current;
         }
 
-        accounts.addAll(getConnection().selectAll(schema, Account.class));
+        accounts.addAll(db.selectAll(schema, Account.class));
         accountMap = accounts.stream().collect(Collectors.toMap(
             item -> item.getName(), item -> item
         ));
-        grades.addAll(getConnection().selectAll(schema, Grade.class));
-        curriculums.addAll(getConnection().selectAll(schema, Curriculum.class));
-        getConnection().selectAll(schema, CurriculumGrade.class).forEachOrdered(
+        grades.addAll(db.selectAll(schema, Grade.class));
+        curriculums.addAll(db.selectAll(schema, Curriculum.class));
+        db.selectAll(schema, CurriculumGrade.class).forEachOrdered(
             item -> item.getCurriculum().addGrade(item.getGrade())
         );
 
         curriculums.forEach(curriculum -> curriculum.sortGrades());
-        schoolClasses.addAll(getConnection().selectAll(schema, SchoolClass.class));
-        teachers.addAll(getConnection().selectAll(schema, Teacher.class));
+        schoolClasses.addAll(db.selectAll(schema, SchoolClass.class));
+        teachers.addAll(db.selectAll(schema, Teacher.class));
 
-        getConnection().selectAll(schema, TeacherDepartment.class).forEachOrdered(item -> {
+        db.selectAll(schema, TeacherDepartment.class).forEachOrdered(item -> {
             item.getTeacher().getDepartments().add(item.getSubjectCategory());
         });
 
-        subjectTypes.addAll(getConnection().selectAll(schema, SubjectType.class));
-        subjects.addAll(getConnection().selectAll(schema, Subject.class));
+        subjectTypes.addAll(db.selectAll(schema, SubjectType.class));
+        subjects.addAll(db.selectAll(schema, Subject.class));
+    }
+
+    /**
+     * Registers a listener which is notified about changes of courses and workloads. Listeners are called on the
+     * thread performing the change and must return quickly.
+     *
+     * @param listener the listener
+     */
+    public void addChangeListener(Consumer<ChangeEvent> listener) {
+        changeListeners.add(listener);
     }
 
     public Course copyCourse(Course original, double lessons1, double lessons2, SchoolYear schoolYear, Grade grade) {
@@ -171,9 +210,10 @@ public final class PensenData extends BaseData implements Context {
         properties.put(Account.DB_EDIT_ALLOWED, editAllowed);
         properties.put(Account.DB_GRANT_ALLOWED, grantAllowed);
         properties.put(Account.DB_NAME, name);
-        Account result = getConnection().insert(schema, Account.class, properties);
+        Account result = db.insert(schema, Account.class, properties);
         accounts.add(result);
         accountMap.put(name, result);
+        changed(Account.class);
         return result;
     }
 
@@ -191,7 +231,20 @@ public final class PensenData extends BaseData implements Context {
         properties.put(Course.DB_CROSS_CLASS, subject.isCrossClass());
         properties.put(Course.DB_SMALL_GROUP_1, smallGroup1);
         properties.put(Course.DB_SMALL_GROUP_2, smallGroup2);
-        return getConnection().insert(schema, Course.class, properties);
+        Course result = db.insert(schema, Course.class, properties);
+        changed(schoolYear);
+        publish(ChangeEvent.course(result, ChangeEvent.Action.Created));
+        return result;
+    }
+
+    /**
+     * Creates the course table of a school year for the specified filters without caching it. Callers which cache
+     * the table or its representation themselves use this instead of {@link #loadCourseTable}.
+     */
+    public CourseTable createCourseTable(SchoolYear schoolYear, Division division, Grade grade,
+                                         SubjectCategory subjectCategory) {
+        return createCourseTable(getVersion(schoolYear) + getReferenceVersion(), schoolYear, division, grade,
+                                 subjectCategory);
     }
 
     public Curriculum createCurriculum(String code, String description) {
@@ -199,8 +252,9 @@ public final class PensenData extends BaseData implements Context {
         properties.put(Curriculum.DB_ARCHIVED, false);
         properties.put(Curriculum.DB_CODE, code);
         properties.put(Curriculum.DB_DESCRIPTION, description);
-        Curriculum result = getConnection().insert(schema, Curriculum.class, properties);
+        Curriculum result = db.insert(schema, Curriculum.class, properties);
         curriculums.add(result);
+        changed(Curriculum.class);
         return result;
     }
 
@@ -214,8 +268,9 @@ public final class PensenData extends BaseData implements Context {
         properties.put(Division.DB_HEAD_SIGNATURE, headSignature);
         properties.put(Division.DB_HEAD_TITLE, headTitle);
         properties.put(Division.DB_LOGO, logo);
-        Division result = getConnection().insert(schema, Division.class, properties);
+        Division result = db.insert(schema, Division.class, properties);
         divisions.add(result);
+        changed(Division.class);
         return result;
     }
 
@@ -232,7 +287,9 @@ public final class PensenData extends BaseData implements Context {
         properties.put(Employment.DB_SCHOOL_YEAR, schoolYear);
         properties.put(Employment.DB_TEACHER, teacher);
         properties.put(Employment.DB_TEMPORARY, temporary);
-        return getConnection().insert(schema, Employment.class, properties);
+        Employment result = db.insert(schema, Employment.class, properties);
+        changed(schoolYear);
+        return result;
     }
 
     public Note createNote(Teacher teacher, String text, String createdBy) {
@@ -241,7 +298,9 @@ public final class PensenData extends BaseData implements Context {
         properties.put(Note.DB_CREATED_ON, LocalDateTime.now());
         properties.put(Note.DB_TEACHER, teacher);
         properties.put(Note.DB_TEXT, text);
-        return getConnection().insert(schema, Note.class, properties);
+        Note result = db.insert(schema, Note.class, properties);
+        changed(Note.class);
+        return result;
     }
 
     public PoolEntry createPoolEntry(String description, double percent1, double percent2,
@@ -253,7 +312,9 @@ public final class PensenData extends BaseData implements Context {
         properties.put(PoolEntry.DB_SCHOOL_YEAR, schoolYear);
         properties.put(PoolEntry.DB_TEACHER, teacher);
         properties.put(PoolEntry.DB_TYPE, type);
-        return getConnection().insert(schema, PoolEntry.class, properties);
+        PoolEntry result = db.insert(schema, PoolEntry.class, properties);
+        changed(schoolYear);
+        return result;
     }
 
     public Posting createPosting(String description, LocalDate endDate, SchoolYear schoolYear, LocalDate startDate,
@@ -264,7 +325,9 @@ public final class PensenData extends BaseData implements Context {
         properties.put(Posting.DB_SCHOOL_YEAR, schoolYear);
         properties.put(Posting.DB_START_DATE, startDate);
         properties.put(Posting.DB_TEACHER, teacher);
-        return getConnection().insert(schema, Posting.class, properties);
+        Posting result = db.insert(schema, Posting.class, properties);
+        changed(schoolYear);
+        return result;
     }
 
     public SchoolClass createSchoolClass(String code, Curriculum curriculum, Division division, int graduationYear) {
@@ -274,8 +337,9 @@ public final class PensenData extends BaseData implements Context {
         properties.put(SchoolClass.DB_CURRICULUM, curriculum);
         properties.put(SchoolClass.DB_DIVISION, division);
         properties.put(SchoolClass.DB_GRADUATION_YEAR, graduationYear);
-        SchoolClass result = getConnection().insert(schema, SchoolClass.class, properties);
+        SchoolClass result = db.insert(schema, SchoolClass.class, properties);
         schoolClasses.add(result);
+        changed(SchoolClass.class);
         return result;
     }
 
@@ -290,9 +354,10 @@ public final class PensenData extends BaseData implements Context {
         properties.put(SchoolYear.DB_GRADUATION_YEAR, graduationYear);
         properties.put(SchoolYear.DB_SMALL_GROUP_SURCHARGE, smallGroupSurcharge);
         properties.put(SchoolYear.DB_WEEKS, weeks);
-        SchoolYear result = getConnection().insert(schema, SchoolYear.class, properties);
+        SchoolYear result = db.insert(schema, SchoolYear.class, properties);
         result.setPrevious(schoolYears.last());
         schoolYears.add(result);
+        changed(SchoolYear.class);
         return result;
     }
 
@@ -312,8 +377,9 @@ public final class PensenData extends BaseData implements Context {
         properties.put(Subject.DB_EVENTO_CODE, eventoCode);
         properties.put(Subject.DB_SORT_ORDER, sortOrder + 1);
         properties.put(Subject.DB_TYPE, type);
-        Subject result = getConnection().insert(schema, Subject.class, properties);
+        Subject result = db.insert(schema, Subject.class, properties);
         subjects.add(result);
+        changed(Subject.class);
         return result;
     }
 
@@ -329,39 +395,43 @@ public final class PensenData extends BaseData implements Context {
         properties.put(Teacher.DB_GENDER, gender);
         properties.put(Teacher.DB_LAST_NAME, lastName);
         properties.put(Teacher.DB_TITLE, title);
-        Teacher result = getConnection().insert(schema, Teacher.class, properties);
+        Teacher result = db.insert(schema, Teacher.class, properties);
         teachers.add(result);
+        changed(Teacher.class);
         return result;
     }
 
     public void deleteAccount(Account account) {
-        getConnection().delete(schema, account);
+        db.delete(schema, account);
         accounts.remove(account);
         accountMap.remove(account.getName());
+        changed(Account.class);
     }
 
     public void deleteCourse(Course course) {
-        getConnection().delete(schema, course);
+        db.delete(schema, course);
+        changed(course.getSchoolYear());
+        publish(ChangeEvent.course(course, ChangeEvent.Action.Deleted));
     }
 
     public void deleteEmployment(Employment employment) {
         SchoolYear schoolYear = employment.getSchoolYear();
         Teacher teacher = employment.getTeacher();
-        getConnection().delete(
+        db.delete(
             schema, PoolEntry.class,
             Condition.and(
                 Condition.equals(PoolEntry.DB_SCHOOL_YEAR, schoolYear),
                 Condition.equals(PoolEntry.DB_TEACHER, teacher)
             )
         );
-        getConnection().delete(
+        db.delete(
             schema, Posting.class,
             Condition.and(
                 Condition.equals(Posting.DB_SCHOOL_YEAR, schoolYear),
                 Condition.equals(Posting.DB_TEACHER, teacher)
             )
         );
-        getConnection().delete(
+        db.delete(
             schema, ThesisEntry.class,
             Condition.and(
                 Condition.equals(ThesisEntry.DB_SCHOOL_YEAR, schoolYear),
@@ -372,19 +442,23 @@ public final class PensenData extends BaseData implements Context {
             removeTeacher(course, teacher);
         });
 
-        getConnection().delete(schema, employment);
+        db.delete(schema, employment);
+        changed(schoolYear);
     }
 
     public void deleteNote(Note note) {
-        getConnection().delete(schema, note);
+        db.delete(schema, note);
+        changed(Note.class);
     }
 
     public void deletePoolEntry(PoolEntry poolEntry) {
-        getConnection().delete(schema, poolEntry);
+        db.delete(schema, poolEntry);
+        changed(poolEntry.getSchoolYear());
     }
 
     public void deletePosting(Posting posting) {
-        getConnection().delete(schema, posting);
+        db.delete(schema, posting);
+        changed(posting.getSchoolYear());
     }
 
     public boolean deleteSchoolClass(SchoolClass schoolClass) {
@@ -414,8 +488,9 @@ public final class PensenData extends BaseData implements Context {
             }
         }
 
-        getConnection().delete(schema, schoolClass);
+        db.delete(schema, schoolClass);
         schoolClasses.remove(schoolClass);
+        changed(SchoolClass.class);
         return true;
     }
 
@@ -423,6 +498,52 @@ public final class PensenData extends BaseData implements Context {
         return lessonTypes.byEnum(LessonType.Enum.noLessons);
     }
 
+    /**
+     * Executes several mutations in one database transaction. Balance recalculations requested while the mutations
+     * are executed are deferred and performed once per employment before the transaction is committed. The
+     * transaction is rolled back if the mutations return <code>false</code> or throw an exception. Change events are
+     * published after the transaction has been committed. Batches are executed one at a time and other statements
+     * wait until the transaction has ended.
+     *
+     * @param mutations executes the mutations and returns <code>true</code> if all of them succeeded
+     * @return <code>true</code> if the transaction has been committed
+     */
+    public boolean executeBatch(BooleanSupplier mutations) {
+        Map<Integer, Employment> deferred = new LinkedHashMap<>();
+        List<Runnable> changes = new ArrayList<>();
+        List<ChangeEvent> events = new ArrayList<>();
+        boolean committed = false;
+        db.beginTransaction();
+        deferredBalances.set(deferred);
+        deferredChanges.set(changes);
+        deferredEvents.set(events);
+        try {
+            if (mutations.getAsBoolean()) {
+                deferredBalances.remove();
+                deferred.values().forEach(employment -> recalculateBalance(employment));
+                db.commitTransaction();
+                committed = true;
+            }
+        }
+        finally {
+            deferredBalances.remove();
+            deferredChanges.remove();
+            deferredEvents.remove();
+            if (!committed) {
+                db.rollbackTransaction();
+            }
+
+            // the batch itself may have cached uncommitted data under the versions bumped during the batch
+            changes.forEach(Runnable::run);
+        }
+
+        if (committed) {
+            events.forEach(this::publish);
+        }
+
+        return committed;
+    }
+
     public Account getAccountById(int id) {
         return accounts.byId(id);
     }
@@ -500,6 +621,40 @@ public final class PensenData extends BaseData implements Context {
         return subjectTypes.byId(id);
     }
 
+    /**
+     * Returns the version of the reference data shown as part of courses, course tables and workloads, i.e.
+     * curriculums, divisions, grades, school classes, subjects and teachers. The version changes whenever any of
+     * these entities is created, updated or deleted. Changes to a school year change the version of that school year
+     * instead.
+     *
+     * @return the reference data version
+     */
+    public long getReferenceVersion() {
+        return referenceVersion.get();
+    }
+
+    /**
+     * Returns the version of an entity set held in memory. The version changes whenever an entity of the set is
+     * created, updated or deleted.
+     *
+     * @param entityClass the class of the entity set
+     * @return the entity set version
+     */
+    public long getVersion(Class<? extends Entity> entityClass) {
+        return entityVersion(entityClass).get();
+    }
+
+    /**
+     * Returns the version of the data belonging to a school year, i.e. courses, employments, pool entries, postings
+     * and thesis entries. The version changes whenever any of these is created, updated or deleted.
+     *
+     * @param schoolYear the school year
+     * @return the school year data version
+     */
+    public long getVersion(SchoolYear schoolYear) {
+        return schoolYearVersion(schoolYear).get();
+    }
+
     public Teacher getTeacherByCode(String code) {
         return teachers.stream().filter(teacher -> Util.iequal(code, teacher.getCode())).findFirst().orElse(null);
     }
@@ -511,12 +666,12 @@ public final class PensenData extends BaseData implements Context {
 
     public Stream<Course> loadAllCourses(SchoolYear schoolYear) {
         Condition where = Condition.equals(Course.DB_SCHOOL_YEAR, schoolYear);
-        return getConnection().select(schema, Course.class, where).map(course -> course.resolve(this));
+        return db.select(schema, Course.class, where).map(course -> course.resolve(this));
     }
 
     public Course loadCourse(int id) {
         Condition where = Condition.equals(Course.DB_ID, id);
-        Course result = getConnection().selectOne(schema, Course.class, where);
+        Course result = db.selectOne(schema, Course.class, where);
         if (result != null) {
             result.resolve(this);
         }
@@ -529,21 +684,57 @@ public final class PensenData extends BaseData implements Context {
             Condition.equals(Course.DB_SCHOOL_YEAR, schoolYear),
             Condition.equals(Course.DB_CROSS_CLASS, crossClass)
         );
-        return getConnection().select(schema, Course.class, where).map(course -> course.resolve(this));
+        return db.select(schema, Course.class, where).map(course -> course.resolve(this));
+    }
+
+    /**
+     * Loads the courses of a school year matching the specified criteria.
+     *
+     * @param schoolYear the school year
+     * @param crossClass the required cross-class flag or <code>null</code> to load all courses
+     * @param cancelled the required cancelled flag or <code>null</code> to load all courses
+     * @return the matching courses
+     */
+    public Stream<Course> loadCourses(SchoolYear schoolYear, Boolean crossClass, Boolean cancelled) {
+        List<Condition> conditions = new ArrayList<>();
+        conditions.add(Condition.equals(Course.DB_SCHOOL_YEAR, schoolYear));
+        if (crossClass != null) {
+            conditions.add(Condition.equals(Course.DB_CROSS_CLASS, crossClass));
+        }
+
+        if (cancelled != null) {
+            conditions.add(Condition.equals(Course.DB_CANCELLED, cancelled));
+        }
+
+        Condition where = Condition.and(conditions.toArray(new Condition[conditions.size()]));
+        return db.select(schema, Course.class, where).map(course -> course.resolve(this));
     }
 
+    /**
+     * Returns the course table of a school year for the specified filters. Course tables are cached per school year
+     * until a course, school class or subject changes.
+     */
     public CourseTable loadCourseTable(SchoolYear schoolYear, Division division, Grade grade,
                                        SubjectCategory subjectCategory) {
-        return CourseTable.create(
-            streamSchoolClassesFor(schoolYear, null).filter(schoolClass -> schoolClass.filter(division, grade, schoolYear)),
-            streamSubjects().filter(subject -> !subject.isCrossClass() && !subject.isArchived() && subject.filter(subjectCategory)),
-            loadCourses(schoolYear, false)
+        // both versions only increase, so their sum changes whenever one of them changes
+        long version = getVersion(schoolYear) + getReferenceVersion();
+        String key = filterKey(division) + "/" + filterKey(grade) + "/" + filterKey(subjectCategory);
+        Map<String, CourseTable> tables = courseTables.computeIfAbsent(
+            schoolYear.getId(), id -> new ConcurrentHashMap<>()
         );
+        CourseTable result = tables.get(key);
+        if (result != null && result.getVersion() == version) {
+            return result;
+        }
+
+        result = createCourseTable(version, schoolYear, division, grade, subjectCategory);
+        tables.put(key, result);
+        return result;
     }
 
     public Employment loadEmployment(int id) {
         Condition where = Condition.equals(Employment.DB_ID, id);
-        return getConnection().selectOne(schema, Employment.class, where);
+        return db.selectOne(schema, Employment.class, where);
     }
 
     public Employment loadEmployment(SchoolYear schoolYear, Teacher teacher) {
@@ -551,7 +742,7 @@ public final class PensenData extends BaseData implements Context {
             Condition.equals(Employment.DB_SCHOOL_YEAR, schoolYear),
             Condition.equals(Employment.DB_TEACHER, teacher)
         );
-        return getConnection().selectOne(schema, Employment.class, where);
+        return db.selectOne(schema, Employment.class, where);
     }
 
     public Stream<Employment> loadEmployments(SchoolYear schoolYear, Division division) {
@@ -560,7 +751,7 @@ public final class PensenData extends BaseData implements Context {
             where = Condition.and(where, Condition.equals(Employment.DB_DIVISION, division));
         }
 
-        return getConnection().select(schema, Employment.class, where).sorted();
+        return db.select(schema, Employment.class, where).sorted();
     }
 
     public LessonTable loadLessonTable(Curriculum curriculum, Division division) {
@@ -573,12 +764,9 @@ public final class PensenData extends BaseData implements Context {
         Map<Grade, LessonTable.Entry> map = curriculum.grades().collect(
             Collectors.toMap(grade -> grade, grade -> LessonTable.createEntry(grade, emptyLessonType()))
         );
-        Condition where = Condition.and(
-            Condition.equals(LessonTableEntry.DB_CURRICULUM, curriculum),
-            Condition.equals(LessonTableEntry.DB_SUBJECT, subject),
-            division == null ? Condition.isNull(LessonTableEntry.DB_DIVISION) :
-                Condition.equals(LessonTableEntry.DB_DIVISION, division));
-        getConnection().select(schema, LessonTableEntry.class, where).forEachOrdered(item -> {
+        loadLessonTableEntriesRaw(curriculum, division).filter(
+            item -> Util.equal(item.getSubject(), subject)
+        ).forEachOrdered(item -> {
             if (map.containsKey(item.getGrade())) {
                 map.get(item.getGrade()).setData(item);
             }
@@ -586,37 +774,59 @@ public final class PensenData extends BaseData implements Context {
         return map.values().stream().sorted();
     }
 
+    /**
+     * Returns the lesson table entries of a curriculum and division. The entries are read from the database once and
+     * then held in memory, {@link #saveLessonTableEntries} keeps them up to date. The returned entries must not be
+     * modified.
+     */
     public Stream<LessonTableEntry> loadLessonTableEntriesRaw(Curriculum curriculum, Division division) {
+        String key = lessonTableKey(curriculum, division);
+        List<LessonTableEntry> result = lessonTableEntries.get(key);
+        if (result != null) {
+            return result.stream();
+        }
+
+        // the query runs outside of the map, so that it does not block other keys; entries loaded while the lesson
+        // tables have been changed are returned but not kept
+        long version = lessonTableVersion.get();
         Condition where = Condition.and(
             Condition.equals(LessonTableEntry.DB_CURRICULUM, curriculum),
             division == null ? Condition.isNull(LessonTableEntry.DB_DIVISION) :
                 Condition.equals(LessonTableEntry.DB_DIVISION, division));
-        return getConnection().select(schema, LessonTableEntry.class, where);
+        List<LessonTableEntry> loaded = db.select(schema, LessonTableEntry.class, where).collect(
+            Collectors.toUnmodifiableList()
+        );
+        result = lessonTableEntries.putIfAbsent(key, loaded);
+        if (result != null) {
+            return result.stream();
+        }
+
+        if (lessonTableVersion.get() != version) {
+            lessonTableEntries.remove(key, loaded);
+        }
+
+        return loaded.stream();
     }
 
     public LessonTableEntry loadLessonTableEntry(Curriculum curriculum, Division division, Subject subject, Grade grade) {
-        Condition where = Condition.and(
-            Condition.equals(LessonTableEntry.DB_CURRICULUM, curriculum),
-            Condition.equals(LessonTableEntry.DB_SUBJECT, subject),
-            Condition.equals(LessonTableEntry.DB_GRADE, grade),
-            division == null ? Condition.isNull(LessonTableEntry.DB_DIVISION) :
-                Condition.equals(LessonTableEntry.DB_DIVISION, division));
-        return getConnection().selectOne(schema, LessonTableEntry.class, where);
+        return loadLessonTableEntriesRaw(curriculum, division).filter(
+            entry -> Util.equal(entry.getSubject(), subject) && Util.equal(entry.getGrade(), grade)
+        ).findFirst().orElse(null);
     }
 
     public Note loadNote(int id) {
         Condition where = Condition.equals(Note.DB_ID, id);
-        return getConnection().selectOne(schema, Note.class, where);
+        return db.selectOne(schema, Note.class, where);
     }
 
     public Stream<Note> loadNotes(Teacher teacher) {
         Condition where = Condition.equals(Note.DB_TEACHER, teacher);
-        return getConnection().select(schema, Note.class, where).sorted();
+        return db.select(schema, Note.class, where).sorted();
     }
 
     public Stream<PoolEntry> loadPoolEntries(SchoolYear schoolYear) {
         Condition where = Condition.equals(PoolEntry.DB_SCHOOL_YEAR, schoolYear);
-        return getConnection().select(schema, PoolEntry.class, where).sorted();
+        return db.select(schema, PoolEntry.class, where).sorted();
     }
 
     public Stream<PoolEntry> loadPoolEntries(SchoolYear schoolYear, Teacher teacher) {
@@ -624,17 +834,17 @@ public final class PensenData extends BaseData implements Context {
             Condition.equals(PoolEntry.DB_SCHOOL_YEAR, schoolYear),
             Condition.equals(PoolEntry.DB_TEACHER, teacher)
         );
-        return getConnection().select(schema, PoolEntry.class, where).sorted();
+        return db.select(schema, PoolEntry.class, where).sorted();
     }
 
     public PoolEntry loadPoolEntry(int id) {
         Condition where = Condition.equals(PoolEntry.DB_ID, id);
-        return getConnection().selectOne(schema, PoolEntry.class, where);
+        return db.selectOne(schema, PoolEntry.class, where);
     }
 
     public Stream<PostingDetail> loadPostingDetails(SchoolYear schoolYear) {
         Condition where = Condition.equals(PostingDetail.DB_SCHOOL_YEAR, schoolYear);
-        return getConnection().select(schema, PostingDetail.class, where);
+        return db.select(schema, PostingDetail.class, where);
     }
 
     public Stream<PostingDetail> loadPostingDetails(SchoolYear schoolYear, Teacher teacher) {
@@ -642,13 +852,13 @@ public final class PensenData extends BaseData implements Context {
             Condition.equals(PostingDetail.DB_SCHOOL_YEAR, schoolYear),
             Condition.equals(PostingDetail.DB_TEACHER, teacher)
         );
-        return getConnection().select(schema, PostingDetail.class, where);
+        return db.select(schema, PostingDetail.class, where);
     }
 
     public ValueMap<PostingType> loadPostingDetails(Posting posting) {
         ValueMap<PostingType> result = ValueMap.create(streamPostingTypes());
         Condition where = Condition.equals(PostingDetail.DB_POSTING, posting);
-        getConnection().select(schema, PostingDetail.class, where).forEachOrdered(item -> {
+        db.select(schema, PostingDetail.class, where).forEachOrdered(item -> {
             result.put(item.getType(), item.getValue());
         });
         return result;
@@ -656,7 +866,7 @@ public final class PensenData extends BaseData implements Context {
 
     public Stream<Posting> loadPostings(SchoolYear schoolYear) {
         Condition where = Condition.equals(Posting.DB_SCHOOL_YEAR, schoolYear);
-        return getConnection().select(schema, Posting.class, where).sorted();
+        return db.select(schema, Posting.class, where).sorted();
     }
 
     public Stream<Posting> loadPostings(SchoolYear schoolYear, Teacher teacher) {
@@ -665,41 +875,41 @@ public final class PensenData extends BaseData implements Context {
             Condition.equals(Posting.DB_TEACHER, teacher)
         );
 
-        return getConnection().select(schema, Posting.class, where).sorted();
+        return db.select(schema, Posting.class, where).sorted();
     }
 
     public Posting loadPosting(int id) {
         Condition where = Condition.equals(Posting.DB_ID, id);
-        return getConnection().selectOne(schema, Posting.class, where);
+        return db.selectOne(schema, Posting.class, where);
     }
 
     public Settings loadSettings(Account authorisation) {
         Condition where = Condition.equals(Settings.DB_ACCOUNT, authorisation);
-        synchronized (lock) {
-            Settings result = getConnection().selectOne(schema, Settings.class, where);
+        return db.write(() -> {
+            Settings result = db.selectOne(schema, Settings.class, where);
             if (result == null) {
                 PropertyMap properties = PropertyMap.create();
                 properties.put(Settings.DB_ACCOUNT, authorisation);
-                result = getConnection().insert(schema, Settings.class, properties);
+                result = db.insert(schema, Settings.class, properties);
             }
 
             return result;
-        }
+        });
     }
 
     public Stream<Teacher> loadTeachersForSchoolYear(SchoolYear schoolYear) {
         Condition where = Condition.equals(Employment.DB_SCHOOL_YEAR, schoolYear);
-        return getConnection().select(schema, Employment.class, where).map(item -> item.getTeacher()).sorted();
+        return db.select(schema, Employment.class, where).map(item -> item.getTeacher()).sorted();
     }
 
     public Stream<Employment> loadTeacherHistory(Teacher teacher) {
         Condition where = Condition.equals(Employment.DB_TEACHER, teacher);
-        return getConnection().select(schema, Employment.class, where).sorted();
+        return db.select(schema, Employment.class, where).sorted();
     }
 
     public Stream<ThesisEntry> loadThesisEntries(SchoolYear schoolYear) {
         Condition where = Condition.equals(ThesisEntry.DB_SCHOOL_YEAR, schoolYear);
-        return getConnection().select(schema, ThesisEntry.class, where);
+        return db.select(schema, ThesisEntry.class, where);
     }
 
     public Stream<ThesisEntry> loadThesisEntries(SchoolYear schoolYear, Teacher teacher) {
@@ -707,7 +917,7 @@ public final class PensenData extends BaseData implements Context {
             Condition.equals(ThesisEntry.DB_SCHOOL_YEAR, schoolYear),
             Condition.equals(ThesisEntry.DB_TEACHER, teacher)
         );
-        return getConnection().select(schema, ThesisEntry.class, where);
+        return db.select(schema, ThesisEntry.class, where);
     }
 
     public Workload loadWorkload(Employment employment) {
@@ -791,26 +1001,37 @@ public final class PensenData extends BaseData implements Context {
             return;
         }
 
+        Map<Integer, Employment> deferred = deferredBalances.get();
+        if (deferred != null) {
+            deferred.putIfAbsent(employment.getId(), employment);
+            return;
+        }
+
         Workload workload = loadWorkload(employment);
         employment.setClosingBalance(workload.getClosingBalance());
-        getConnection().update(schema, employment, Employment.DB_CLOSING_BALANCE);
+        db.update(schema, employment, Employment.DB_CLOSING_BALANCE);
+        changed(employment.getSchoolYear());
+        publish(ChangeEvent.workload(employment));
         // update opening balance of next school year
         Employment next = loadNextEmployment(employment);
         if (next != null) {
             next.setOpeningBalance(workload.getClosingBalance());
-            getConnection().update(schema, next, Employment.DB_OPENING_BALANCE);
+            db.update(schema, next, Employment.DB_OPENING_BALANCE);
+            changed(next.getSchoolYear());
+            publish(ChangeEvent.workload(next));
         }
     }
 
     public void saveLessonTableEntries(Curriculum curriculum, Division division, Subject subject,
                                        Stream<LessonTable.Entry> entries) {
-        synchronized (lock) {
+        db.write(() -> {
             Condition where = Condition.and(
                 Condition.equals(LessonTableEntry.DB_CURRICULUM, curriculum),
                 Condition.equals(LessonTableEntry.DB_SUBJECT, subject),
                 division == null ? Condition.isNull(LessonTableEntry.DB_DIVISION) :
                     Condition.equals(LessonTableEntry.DB_DIVISION, division));
-            getConnection().delete(schema, LessonTableEntry.class, where);
+            db.delete(schema, LessonTableEntry.class, where);
+            List<LessonTableEntry> saved = new ArrayList<>();
             entries.filter(entry -> entry.typeEnum() != LessonType.Enum.noLessons).forEachOrdered(entry -> {
                 PropertyMap properties = PropertyMap.create();
                 properties.put(LessonTableEntry.DB_CURRICULUM, curriculum);
@@ -820,15 +1041,24 @@ public final class PensenData extends BaseData implements Context {
                 properties.put(LessonTableEntry.DB_LESSONS_1, entry.getLessons1());
                 properties.put(LessonTableEntry.DB_LESSONS_2, entry.getLessons2());
                 properties.put(LessonTableEntry.DB_TYPE, entry.getType());
-                getConnection().insert(schema, LessonTableEntry.class, properties);
+                saved.add(db.insert(schema, LessonTableEntry.class, properties));
             });
-        }
+            lessonTableVersion.incrementAndGet();
+            // replace the entries of the subject in the resident lesson table, if it has been loaded
+            lessonTableEntries.computeIfPresent(lessonTableKey(curriculum, division), (key, current) -> {
+                List<LessonTableEntry> result = current.stream().filter(
+                    entry -> !Util.equal(entry.getSubject(), subject)
+                ).collect(Collectors.toList());
+                result.addAll(saved);
+                return Collections.unmodifiableList(result);
+            });
+        });
     }
 
     public void savePostingDetails(Posting posting, ValueMap<PostingType> map) {
-        synchronized (lock) {
+        db.write(() -> {
             Condition where = Condition.equals(PostingDetail.DB_POSTING, posting);
-            getConnection().delete(schema, PostingDetail.class, where);
+            db.delete(schema, PostingDetail.class, where);
             map.stream().filter(entry -> entry.getValue() != 0).forEachOrdered(entry -> {
                 PropertyMap properties = PropertyMap.create();
                 properties.put(PostingDetail.DB_POSTING, posting);
@@ -836,33 +1066,37 @@ public final class PensenData extends BaseData implements Context {
                 properties.put(PostingDetail.DB_TEACHER, posting.getTeacher());
                 properties.put(PostingDetail.DB_TYPE, entry.getKey());
                 properties.put(PostingDetail.DB_VALUE, entry.getValue());
-                getConnection().insert(schema, PostingDetail.class, properties);
+                db.insert(schema, PostingDetail.class, properties);
             });
-        }
+        });
+
+        changed(posting.getSchoolYear());
     }
 
     public void saveThesisEntries(SchoolYear schoolYear, Teacher teacher, ValueMap<ThesisType> map) {
-        synchronized (lock) {
+        db.write(() -> {
             Condition where = Condition.and(
                 Condition.equals(ThesisEntry.DB_SCHOOL_YEAR, schoolYear),
                 Condition.equals(ThesisEntry.DB_TEACHER, teacher)
             );
-            getConnection().delete(schema, ThesisEntry.class, where);
+            db.delete(schema, ThesisEntry.class, where);
             map.stream().filter(entry -> entry.getValue() != 0).forEachOrdered(entry -> {
                 PropertyMap properties = PropertyMap.create();
                 properties.put(ThesisEntry.DB_SCHOOL_YEAR, schoolYear);
                 properties.put(ThesisEntry.DB_TEACHER, teacher);
                 properties.put(ThesisEntry.DB_TYPE, entry.getKey());
                 properties.put(ThesisEntry.DB_COUNT, entry.getValue());
-                getConnection().insert(schema, ThesisEntry.class, properties);
+                db.insert(schema, ThesisEntry.class, properties);
             });
-        }
+        });
+
+        changed(schoolYear);
     }
 
     public void saveWeeklyLessons(SchoolYear schoolYear, ValueMap<PayrollType> map) {
-        synchronized (lock) {
+        db.write(() -> {
             Condition where = Condition.equals(WeeklyLessons.DB_SCHOOL_YEAR, schoolYear);
-            getConnection().delete(schema, WeeklyLessons.class, where);
+            db.delete(schema, WeeklyLessons.class, where);
             schoolYear.clearWeeklyLessons();
             map.stream().filter(entry -> entry.getValue() != 0).forEachOrdered(entry -> {
                 schoolYear.putWeeklyLessons(entry.getKey(), entry.getValue());
@@ -870,9 +1104,12 @@ public final class PensenData extends BaseData implements Context {
                 properties.put(WeeklyLessons.DB_SCHOOL_YEAR, schoolYear);
                 properties.put(WeeklyLessons.DB_PAYROLL_TYPE, entry.getKey());
                 properties.put(WeeklyLessons.DB_LESSONS, entry.getValue());
-                getConnection().insert(schema, WeeklyLessons.class, properties);
+                db.insert(schema, WeeklyLessons.class, properties);
             });
-        }
+        });
+
+        changed(SchoolYear.class);
+        changed(schoolYear);
     }
 
     public Stream<Account> streamAccounts() {
@@ -951,55 +1188,70 @@ public final class PensenData extends BaseData implements Context {
     }
 
     public void updateAuthorisation(Account authorisation, Set<String> properties) {
-        getConnection().update(schema, authorisation, properties);
+        db.update(schema, authorisation, properties);
+        changed(Account.class);
     }
 
     public void updateCourse(Course course, Set<String> properties) {
-        getConnection().update(schema, course, properties);
+        db.update(schema, course, properties);
+        changed(course.getSchoolYear());
+        publish(ChangeEvent.course(course, ChangeEvent.Action.Updated));
     }
 
     public void updateCurriculum(Curriculum curriculum, Set<String> properties) {
-        getConnection().update(schema, curriculum, properties);
+        db.update(schema, curriculum, properties);
+        changed(Curriculum.class);
     }
 
     public void updateDivision(Division division, Set<String> properties) {
-        getConnection().update(schema, division, properties);
+        db.update(schema, division, properties);
+        changed(Division.class);
     }
 
     public void updateEmployment(Employment employment, Set<String> properties) {
-        getConnection().update(schema, employment);
+        db.update(schema, employment);
+        changed(employment.getSchoolYear());
+        publish(ChangeEvent.workload(employment));
     }
 
     public void updateGrade(Grade grade, Set<String> properties) {
-        getConnection().update(schema, grade, properties);
+        db.update(schema, grade, properties);
+        changed(Grade.class);
     }
 
     public void updatePoolEntry(PoolEntry poolEntry, Set<String> properties) {
-        getConnection().update(schema, poolEntry, properties);
+        db.update(schema, poolEntry, properties);
+        changed(poolEntry.getSchoolYear());
     }
 
     public void updatePosting(Posting posting, Set<String> properties) {
-        getConnection().update(schema, posting, properties);
+        db.update(schema, posting, properties);
+        changed(posting.getSchoolYear());
     }
 
     public void updateSchoolClass(SchoolClass schoolClass, Set<String> properties) {
-        getConnection().update(schema, schoolClass, properties);
+        db.update(schema, schoolClass, properties);
+        changed(SchoolClass.class);
     }
 
     public void updateSchoolYear(SchoolYear schoolYear, Set<String> properties) {
-        getConnection().update(schema, schoolYear, properties);
+        db.update(schema, schoolYear, properties);
+        changed(SchoolYear.class);
+        changed(schoolYear);
     }
 
     public void updateSettings(Settings settings, Set<String> properties) {
-        getConnection().update(schema, settings, properties);
+        db.update(schema, settings, properties);
     }
 
     public void updateSubject(Subject subject, Set<String> properties) {
-        getConnection().update(schema, subject, properties);
+        db.update(schema, subject, properties);
+        changed(Subject.class);
     }
 
     public void updateTeacher(Teacher teacher, Set<String> properties) {
-        getConnection().update(schema, teacher, properties);
+        db.update(schema, teacher, properties);
+        changed(Teacher.class);
     }
 
     public void updateTeacherDepartments(Teacher teacher, Set<SubjectCategory> departments) {
@@ -1010,15 +1262,84 @@ public final class PensenData extends BaseData implements Context {
                 Condition.equals(TeacherDepartment.DB_SUBJECT_CATEGORY, removed),
                 Condition.equals(TeacherDepartment.DB_TEACHER, teacher)
             );
-            getConnection().delete(schema, TeacherDepartment.class, where);
+            db.delete(schema, TeacherDepartment.class, where);
         }
         for (SubjectCategory added : comp.getAdded()) {
             teacher.getDepartments().add(added);
             PropertyMap properties = PropertyMap.create();
             properties.put(TeacherDepartment.DB_SUBJECT_CATEGORY, added);
             properties.put(TeacherDepartment.DB_TEACHER, teacher);
-            getConnection().insert(schema, TeacherDepartment.class, properties);
+            db.insert(schema, TeacherDepartment.class, properties);
+        }
+
+        changed(Teacher.class);
+    }
+
+    private void changed(Class<? extends Entity> entityClass) {
+        entityVersion(entityClass).incrementAndGet();
+        if (REFERENCED_ENTITIES.contains(entityClass)) {
+            referenceVersion.incrementAndGet();
+            courseTables.clear();
         }
+
+        if (LESSON_TABLE_REFERENCES.contains(entityClass)) {
+            lessonTableVersion.incrementAndGet();
+            lessonTableEntries.clear();
+        }
+
+        deferChange(() -> changed(entityClass));
+    }
+
+    private void changed(SchoolYear schoolYear) {
+        schoolYearVersion(schoolYear).incrementAndGet();
+        courseTables.remove(schoolYear.getId());
+        deferChange(() -> changed(schoolYear));
+    }
+
+    /**
+     * Repeats a version change after the current batch has ended.
+     */
+    private void deferChange(Runnable change) {
+        List<Runnable> deferred = deferredChanges.get();
+        if (deferred != null) {
+            deferred.add(change);
+        }
+    }
+
+    private void publish(ChangeEvent event) {
+        List<ChangeEvent> deferred = deferredEvents.get();
+        if (deferred != null) {
+            deferred.add(event);
+        }
+        else {
+            changeListeners.forEach(listener -> listener.accept(event));
+        }
+    }
+
+    private static String filterKey(Entity entity) {
+        return entity == null ? "" : String.valueOf(entity.getId());
+    }
+
+    private static String lessonTableKey(Curriculum curriculum, Division division) {
+        return curriculum.getId() + "/" + filterKey(division);
+    }
+
+    private AtomicLong entityVersion(Class<? extends Entity> entityClass) {
+        return entityVersions.computeIfAbsent(entityClass, key -> new AtomicLong());
+    }
+
+    private AtomicLong schoolYearVersion(SchoolYear schoolYear) {
+        return schoolYearVersions.computeIfAbsent(schoolYear.getId(), key -> new AtomicLong());
+    }
+
+    private CourseTable createCourseTable(long version, SchoolYear schoolYear, Division division, Grade grade,
+                                          SubjectCategory subjectCategory) {
+        return CourseTable.create(
+            version,
+            streamSchoolClassesFor(schoolYear, null).filter(schoolClass -> schoolClass.filter(division, grade, schoolYear)),
+            streamSubjects().filter(subject -> !subject.isCrossClass() && !subject.isArchived() && subject.filter(subjectCategory)),
+            loadCourses(schoolYear, false)
+        );
     }
 
     private Workload createWorkload(Employment employment, Stream<Course> courses, Stream<PoolEntry> poolEntries,
@@ -20,8 +20,9 @@ import ch.kinet.Entity;
 import ch.kinet.JsonObject;
 import ch.kinet.Util;
 import ch.kinet.reflect.PropertyInitializer;
+import java.util.function.Predicate;
 
-public final class PoolEntry extends Entity {
+public final class PoolEntry extends Entity implements JsonProjection {
 
     public static final String DB_DESCRIPTION = "Description";
     public static final String DB_PERCENT_1 = "Percent1";
@@ -102,17 +103,40 @@ public final class PoolEntry extends Entity {
     }
 
     @Override
-    public JsonObject toJsonTerse() {
+    public JsonObject toJson(Predicate<String> fields, boolean verbose) {
         JsonObject result = super.toJsonTerse();
-        result.put(JSON_DESCRIPTION, description);
-        result.put(JSON_PERCENT_1, percent1);
-        result.put(JSON_PERCENT_2, percent2);
-        result.putTerse(JSON_TYPE, type);
-        result.putTerse(JSON_SCHOOL_YEAR, schoolYear);
-        result.putTerse(JSON_TEACHER, teacher);
+        if (fields.test(JSON_DESCRIPTION)) {
+            result.put(JSON_DESCRIPTION, description);
+        }
+
+        if (fields.test(JSON_PERCENT_1)) {
+            result.put(JSON_PERCENT_1, percent1);
+        }
+
+        if (fields.test(JSON_PERCENT_2)) {
+            result.put(JSON_PERCENT_2, percent2);
+        }
+
+        if (fields.test(JSON_TYPE)) {
+            result.putTerse(JSON_TYPE, type);
+        }
+
+        if (fields.test(JSON_SCHOOL_YEAR)) {
+            result.putTerse(JSON_SCHOOL_YEAR, schoolYear);
+        }
+
+        if (fields.test(JSON_TEACHER)) {
+            result.putTerse(JSON_TEACHER, teacher);
+        }
+
         return result;
     }
 
+    @Override
+    public JsonObject toJsonTerse() {
+        return toJson(field -> true, false);
+    }
+
     @Override
     public JsonObject toJsonVerbose() {
         return toJsonTerse();
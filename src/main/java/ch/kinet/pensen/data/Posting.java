@@ -21,8 +21,9 @@ import ch.kinet.JsonObject;
 import ch.kinet.Util;
 import ch.kinet.reflect.PropertyInitializer;
 import java.time.LocalDate;
+import java.util.function.Predicate;
 
-public final class Posting extends Entity {
+public final class Posting extends Entity implements JsonProjection {
 
     public static final String DB_DESCRIPTION = "Description";
     public static final String DB_END_DATE = "EndDate";
@@ -98,16 +99,36 @@ public final class Posting extends Entity {
     }
 
     @Override
-    public JsonObject toJsonTerse() {
+    public JsonObject toJson(Predicate<String> fields, boolean verbose) {
         JsonObject result = super.toJsonTerse();
-        result.put(JSON_DESCRIPTION, description);
-        result.put(JSON_END_DATE, endDate);
-        result.put(JSON_START_DATE, startDate);
-        result.putTerse(JSON_SCHOOL_YEAR, schoolYear);
-        result.putTerse(JSON_TEACHER, teacher);
+        if (fields.test(JSON_DESCRIPTION)) {
+            result.put(JSON_DESCRIPTION, description);
+        }
+
+        if (fields.test(JSON_END_DATE)) {
+            result.put(JSON_END_DATE, endDate);
+        }
+
+        if (fields.test(JSON_START_DATE)) {
+            result.put(JSON_START_DATE, startDate);
+        }
+
+        if (fields.test(JSON_SCHOOL_YEAR)) {
+            result.putTerse(JSON_SCHOOL_YEAR, schoolYear);
+        }
+
+        if (fields.test(JSON_TEACHER)) {
+            result.putTerse(JSON_TEACHER, teacher);
+        }
+
         return result;
     }
 
+    @Override
+    public JsonObject toJsonTerse() {
+        return toJson(field -> true, false);
+    }
+
     @Override
     protected int doCompare(Entity entity) {
         if (entity instanceof Posting) {
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.data;
+
+import ch.kinet.pensen.server.Configuration;
+import ch.kinet.sql.Condition;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Records the database statements executed while handling a request. A recorder is bound to the thread handling the
+ * request. Statements executed without a recorder, e.g. by jobs, are only checked against the slow query threshold.
+ */
+public final class QueryRecorder {
+
+    private static final ThreadLocal<QueryRecorder> CURRENT = new ThreadLocal<>();
+    private static final int MAX_DESCRIPTION_LENGTH = 120;
+    private static final int SLOWEST_COUNT = 3;
+    private final String name;
+    private final Map<String, Integer> shapes = new HashMap<>();
+    private final Statement[] slowest = new Statement[SLOWEST_COUNT];
+    private int statementCount;
+    private long totalNanos;
+
+    /**
+     * Creates a recorder and binds it to the current thread.
+     *
+     * @param name the name of the request used in log messages
+     * @return the recorder
+     */
+    public static QueryRecorder begin(String name) {
+        QueryRecorder result = new QueryRecorder(name);
+        CURRENT.set(result);
+        return result;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    static void record(String operation, Class<?> entityClass, Condition where, long nanos) {
+        QueryRecorder recorder = CURRENT.get();
+        long slowQueryMillis = Configuration.getInstance().getSlowQueryMillis();
+        if (recorder == null && (slowQueryMillis <= 0 || nanos < slowQueryMillis * 1000000)) {
+            return;
+        }
+
+        Statement statement = new Statement(operation, entityClass, where, nanos);
+        if (slowQueryMillis > 0 && nanos >= slowQueryMillis * 1000000) {
+            System.err.println("Slow query (" + formatMillis(nanos) + " ms" +
+                               (recorder == null ? "" : " in " + recorder.name) + "): " + statement.text);
+        }
+
+        if (recorder != null) {
+            recorder.add(statement);
+        }
+    }
+
+    private QueryRecorder(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Logs a warning for each statement shape executed more often than the configured threshold. Such statements are
+     * usually executed in a loop and indicate an N+1 query problem.
+     */
+    public void checkRepeatedStatements() {
+        int threshold = Configuration.getInstance().getRepeatedQueryThreshold();
+        if (threshold <= 0) {
+            return;
+        }
+
+        shapes.forEach((shape, count) -> {
+            if (count > threshold) {
+                System.err.println("Possible N+1 query in " + name + ": " + count + " times " + shape);
+            }
+        });
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Returns the value of a <code>Server-Timing</code> header containing the total database time and the slowest
+     * statements.
+     *
+     * @return the header value
+     */
+    public String toServerTiming() {
+        StringBuilder result = new StringBuilder();
+        result.append("db;dur=").append(formatMillis(totalNanos));
+        result.append(";desc=\"").append(statementCount).append(" statements\"");
+        for (int i = 0; i < slowest.length && slowest[i] != null; ++i) {
+            result.append(", sql").append(i + 1).append(";dur=").append(formatMillis(slowest[i].nanos));
+            result.append(";desc=\"").append(quote(slowest[i].text)).append('"');
+        }
+
+        return result.toString();
+    }
+
+    private void add(Statement statement) {
+        ++statementCount;
+        totalNanos += statement.nanos;
+        shapes.merge(statement.shape, 1, Integer::sum);
+        for (int i = 0; i < slowest.length; ++i) {
+            if (slowest[i] == null || statement.nanos > slowest[i].nanos) {
+                System.arraycopy(slowest, i, slowest, i + 1, slowest.length - i - 1);
+                slowest[i] = statement;
+                return;
+            }
+        }
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+    }
+
+    private static String quote(String text) {
+        if (text.length() > MAX_DESCRIPTION_LENGTH) {
+            text = text.substring(0, MAX_DESCRIPTION_LENGTH);
+        }
+
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static final class Statement {
+
+        private final long nanos;
+        private final String shape;
+        private final String text;
+
+        Statement(String operation, Class<?> entityClass, Condition where, long nanos) {
+            this.nanos = nanos;
+            StringBuilder builder = new StringBuilder();
+            builder.append(operation).append(' ').append(entityClass.getSimpleName());
+            if (where != null) {
+                builder.append(" where ").append(where);
+            }
+
+            this.text = builder.toString();
+            this.shape = text.replaceAll("\\d+", "?");
+        }
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.data;
+
+import ch.kinet.PropertyMap;
+import ch.kinet.sql.Condition;
+import ch.kinet.sql.Connection;
+import java.lang.ref.Cleaner;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Delegates database statements to the connection and reports their execution time to the {@link QueryRecorder}.
+ * A select returning a stream keeps its permit until the stream has been read to the end or closed, the result is not
+ * copied. Statements of a thread that is reading such a stream or has left one open do not take another permit, so
+ * that a thread never waits for a permit it holds itself. The number of statements executed concurrently is bounded, so that request and job threads wait here instead of queueing on the database.
+ * The connection is shared by all threads. While a transaction is open, statements of other threads wait until it has
+ * been committed or rolled back, so that their writes are not executed within the transaction and their reads do not
+ * see its uncommitted rows.
+ */
+final class RecordingConnection {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final String DELETE = "delete";
+    private static final String INSERT = "insert";
+    private static final ThreadLocal<AtomicInteger> LEASES = ThreadLocal.withInitial(AtomicInteger::new);
+    private static final String SELECT = "select";
+    private static final String UPDATE = "update";
+    private final Supplier<Connection> connection;
+    private final Semaphore permits;
+    private final Lock readLock;
+    private final Lock writeLock;
+
+    RecordingConnection(Supplier<Connection> connection, int maxConcurrency) {
+        this.connection = connection;
+        this.permits = new Semaphore(maxConcurrency, true);
+        ReadWriteLock lock = new ReentrantReadWriteLock(true);
+        readLock = lock.readLock();
+        writeLock = lock.writeLock();
+    }
+
+    /**
+     * Begins a transaction. The write lock is held by the calling thread until the transaction is committed or
+     * rolled back, which also keeps reads of other threads out of the transaction.
+     */
+    void beginTransaction() {
+        writeLock.lock();
+        try {
+            connection.get().beginTransaction();
+        }
+        catch (RuntimeException ex) {
+            writeLock.unlock();
+            throw ex;
+        }
+    }
+
+    void commitTransaction() {
+        try {
+            connection.get().commitTransaction();
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    void delete(String schema, Object object) {
+        writeLock.lock();
+        boolean permit = acquirePermit();
+        long start = System.nanoTime();
+        try {
+            connection.get().delete(schema, object);
+        }
+        finally {
+            releasePermit(permit);
+            writeLock.unlock();
+            QueryRecorder.record(DELETE, object.getClass(), null, System.nanoTime() - start);
+        }
+    }
+
+    void delete(String schema, Class<?> entityClass, Condition where) {
+        writeLock.lock();
+        boolean permit = acquirePermit();
+        long start = System.nanoTime();
+        try {
+            connection.get().delete(schema, entityClass, where);
+        }
+        finally {
+            releasePermit(permit);
+            writeLock.unlock();
+            QueryRecorder.record(DELETE, entityClass, where, System.nanoTime() - start);
+        }
+    }
+
+    <T> T insert(String schema, Class<T> entityClass, PropertyMap properties) {
+        writeLock.lock();
+        boolean permit = acquirePermit();
+        long start = System.nanoTime();
+        try {
+            return connection.get().insert(schema, entityClass, properties);
+        }
+        finally {
+            releasePermit(permit);
+            writeLock.unlock();
+            QueryRecorder.record(INSERT, entityClass, null, System.nanoTime() - start);
+        }
+    }
+
+    void rollbackTransaction() {
+        try {
+            connection.get().rollbackTransaction();
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    <T> Stream<T> select(String schema, Class<T> entityClass, Condition where) {
+        readLock.lock();
+        boolean permit = acquirePermit();
+        long start = System.nanoTime();
+        try {
+            return lease(connection.get().select(schema, entityClass, where), permit);
+        }
+        catch (RuntimeException ex) {
+            releasePermit(permit);
+            throw ex;
+        }
+        finally {
+            readLock.unlock();
+            QueryRecorder.record(SELECT, entityClass, where, System.nanoTime() - start);
+        }
+    }
+
+    <T> Stream<T> selectAll(String schema, Class<T> entityClass) {
+        readLock.lock();
+        boolean permit = acquirePermit();
+        long start = System.nanoTime();
+        try {
+            return lease(connection.get().selectAll(schema, entityClass), permit);
+        }
+        catch (RuntimeException ex) {
+            releasePermit(permit);
+            throw ex;
+        }
+        finally {
+            readLock.unlock();
+            QueryRecorder.record(SELECT, entityClass, null, System.nanoTime() - start);
+        }
+    }
+
+    <T> T selectOne(String schema, Class<T> entityClass, Condition where) {
+        readLock.lock();
+        boolean permit = acquirePermit();
+        long start = System.nanoTime();
+        try {
+            return connection.get().selectOne(schema, entityClass, where);
+        }
+        finally {
+            releasePermit(permit);
+            readLock.unlock();
+            QueryRecorder.record(SELECT, entityClass, where, System.nanoTime() - start);
+        }
+    }
+
+    void update(String schema, Object object, Set<String> properties) {
+        writeLock.lock();
+        boolean permit = acquirePermit();
+        long start = System.nanoTime();
+        try {
+            connection.get().update(schema, object, properties);
+        }
+        finally {
+            releasePermit(permit);
+            writeLock.unlock();
+            QueryRecorder.record(UPDATE, object.getClass(), null, System.nanoTime() - start);
+        }
+    }
+
+    void update(String schema, Object object, String... properties) {
+        writeLock.lock();
+        boolean permit = acquirePermit();
+        long start = System.nanoTime();
+        try {
+            connection.get().update(schema, object, properties);
+        }
+        finally {
+            releasePermit(permit);
+            writeLock.unlock();
+            QueryRecorder.record(UPDATE, object.getClass(), null, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Executes several statements as one write. The write lock is held while the statements are executed, so that
+     * other writes and transactions do not interleave with them. Callers must not take other locks before, because
+     * writes inside a transaction already hold the write lock.
+     */
+    void write(Runnable statements) {
+        writeLock.lock();
+        try {
+            statements.run();
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Executes several statements as one write like {@link #write(Runnable)} and returns their result.
+     */
+    <T> T write(Supplier<T> statements) {
+        writeLock.lock();
+        try {
+            return statements.get();
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    private boolean acquirePermit() {
+        if (LEASES.get().get() > 0) {
+            return false;
+        }
+
+        permits.acquireUninterruptibly();
+        return true;
+    }
+
+    private void releasePermit(boolean permit) {
+        if (permit) {
+            permits.release();
+        }
+    }
+
+    /**
+     * Returns a stream which releases the permit when the result has been read to the end or the stream is closed.
+     * A stream that is dropped without being read or closed releases the permit when it is garbage collected.
+     */
+    private <T> Stream<T> lease(Stream<T> result, boolean permit) {
+        if (!permit) {
+            return result;
+        }
+
+        Lease lease = new Lease(permits, LEASES.get());
+        Stream<T> stream = StreamSupport.stream(new LeaseSpliterator<>(result.spliterator(), lease), false).onClose(
+            () -> {
+                try {
+                    result.close();
+                }
+                finally {
+                    lease.release();
+                }
+            }
+        );
+        CLEANER.register(stream, lease::release);
+        return stream;
+    }
+
+    /**
+     * A permit held by a select stream. The permit is counted as open for the thread that executed the select until
+     * it is released, which may happen on any thread.
+     */
+    private static final class Lease {
+
+        private final AtomicInteger owner;
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Lease(Semaphore permits, AtomicInteger owner) {
+            this.owner = owner;
+            this.permits = permits;
+            owner.incrementAndGet();
+        }
+
+        /**
+         * Marks the current thread as reading the stream, so that statements executed by the stream pipeline do not
+         * take another permit.
+         */
+        void enter() {
+            LEASES.get().incrementAndGet();
+        }
+
+        void exit() {
+            LEASES.get().decrementAndGet();
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                owner.decrementAndGet();
+                permits.release();
+            }
+        }
+    }
+
+    private static final class LeaseSpliterator<T> implements Spliterator<T> {
+
+        private final Lease lease;
+        private final Spliterator<T> source;
+
+        LeaseSpliterator(Spliterator<T> source, Lease lease) {
+            this.lease = lease;
+            this.source = source;
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics();
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            lease.enter();
+            try {
+                source.forEachRemaining(action);
+            }
+            finally {
+                lease.exit();
+                lease.release();
+            }
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return source.getComparator();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            lease.enter();
+            try {
+                if (source.tryAdvance(action)) {
+                    return true;
+                }
+            }
+            finally {
+                lease.exit();
+            }
+
+            lease.release();
+            return false;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+    }
+}
@@ -25,8 +25,9 @@ import ch.kinet.reflect.PropertyInitializer;
 import java.time.LocalDate;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.function.Predicate;
 
-public final class Teacher extends Entity {
+public final class Teacher extends Entity implements JsonProjection {
 
     public static final String DB_ARCHIVED = "Archived";
     public static final String DB_BIRTHDAY = "Birthday";
@@ -110,6 +111,10 @@ public final class Teacher extends Entity {
         return title;
     }
 
+    public boolean filter(SubjectCategory department) {
+        return department == null || departments.contains(department);
+    }
+
     public boolean isArchived() {
         return archived;
     }
@@ -151,25 +156,63 @@ public final class Teacher extends Entity {
     }
 
     @Override
-    public JsonObject toJsonTerse() {
+    public JsonObject toJson(Predicate<String> fields, boolean verbose) {
         JsonObject result = super.toJsonTerse();
-        result.put(JSON_ARCHIVED, archived);
-        result.put(JSON_CODE, code);
-        result.put(JSON_FIRST_NAME, firstName);
-        result.putTerse(JSON_GENDER, gender);
-        result.put(JSON_LAST_NAME, lastName);
+        if (fields.test(JSON_ARCHIVED)) {
+            result.put(JSON_ARCHIVED, archived);
+        }
+
+        if (fields.test(JSON_CODE)) {
+            result.put(JSON_CODE, code);
+        }
+
+        if (fields.test(JSON_FIRST_NAME)) {
+            result.put(JSON_FIRST_NAME, firstName);
+        }
+
+        if (fields.test(JSON_GENDER)) {
+            result.putTerse(JSON_GENDER, gender);
+        }
+
+        if (fields.test(JSON_LAST_NAME)) {
+            result.put(JSON_LAST_NAME, lastName);
+        }
+
+        if (!verbose) {
+            return result;
+        }
+
+        if (fields.test(JSON_BIRTHDAY)) {
+            result.put(JSON_BIRTHDAY, birthday);
+        }
+
+        if (fields.test(JSON_DEPARTMENTS)) {
+            result.put(JSON_DEPARTMENTS, JsonArray.createTerse(departments.stream()));
+        }
+
+        if (fields.test(JSON_EMAIL)) {
+            result.put(JSON_EMAIL, email);
+        }
+
+        if (fields.test(JSON_EMPLOYEE_NUMBER)) {
+            result.put(JSON_EMPLOYEE_NUMBER, employeeNumber);
+        }
+
+        if (fields.test(JSON_TITLE)) {
+            result.put(JSON_TITLE, title);
+        }
+
         return result;
     }
 
+    @Override
+    public JsonObject toJsonTerse() {
+        return toJson(field -> true, false);
+    }
+
     @Override
     public JsonObject toJsonVerbose() {
-        JsonObject result = toJsonTerse();
-        result.put(JSON_BIRTHDAY, birthday);
-        result.put(JSON_DEPARTMENTS, JsonArray.createTerse(departments.stream()));
-        result.put(JSON_EMAIL, email);
-        result.put(JSON_EMPLOYEE_NUMBER, employeeNumber);
-        result.put(JSON_TITLE, title);
-        return result;
+        return toJson(field -> true, true);
     }
 
     @Override
@@ -19,10 +19,12 @@ package ch.kinet.pensen.job;
 import ch.kinet.DataManager;
 import ch.kinet.JsonObject;
 import ch.kinet.pensen.data.Account;
+import ch.kinet.pensen.data.Employment;
 import ch.kinet.pensen.data.PensenData;
 import ch.kinet.pensen.data.SchoolYear;
 import ch.kinet.pensen.server.Authorisation;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.stream.Collectors;
 
 public final class CalculateBalances extends JobImplementation {
@@ -62,7 +64,16 @@ public final class CalculateBalances extends JobImplementation {
         callback.info("Aktualisierte alle IPB-Saldi.");
         for (SchoolYear schoolYear : schoolYears) {
             callback.info("Aktualisierte IPB-Saldi im Schuljahr {0}.", schoolYear.getCode());
-            pensenData.recalculateBalance(schoolYear);
+            List<Employment> employments = pensenData.loadEmployments(schoolYear, null).collect(Collectors.toList());
+            for (Employment employment : employments) {
+                // a school year has many employments, so a cancellation is honoured before each of them
+                if (callback.isCancelled()) {
+                    throw new CancellationException();
+                }
+
+                pensenData.recalculateBalance(employment);
+            }
+
             callback.step();
         }
 
@@ -63,15 +63,24 @@ public final class CourseExport extends JobImplementation {
             return false;
         }
 
-        courses = pensenData.loadAllCourses(schoolYear).collect(Collectors.toList());
         return true;
     }
 
+    @Override
+    public void loadData() {
+        courses = pensenData.loadAllCourses(schoolYear).collect(Collectors.toList());
+    }
+
     @Override
     public long getStepCount() {
         return 2;
     }
 
+    @Override
+    protected void releaseData() {
+        courses = null;
+    }
+
     @Override
     public void run(Account creator, JobCallback callback) {
         CsvGenerator generator = new CsvGenerator(semester);
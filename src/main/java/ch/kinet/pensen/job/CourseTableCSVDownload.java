@@ -60,6 +60,11 @@ public final class CourseTableCSVDownload extends JobImplementation {
         return schoolYear != null;
     }
 
+    @Override
+    public String getProductKey() {
+        return productKey(pensenData, schoolYear, division, grade, subjectCategory);
+    }
+
     @Override
     public long getStepCount() {
         return 2;
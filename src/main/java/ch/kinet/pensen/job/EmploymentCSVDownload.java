@@ -55,6 +55,11 @@ public final class EmploymentCSVDownload extends JobImplementation {
         return schoolYear != null;
     }
 
+    @Override
+    public String getProductKey() {
+        return productKey(pensenData, schoolYear, division);
+    }
+
     @Override
     public long getStepCount() {
         return 2;
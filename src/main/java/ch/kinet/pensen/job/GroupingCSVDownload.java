@@ -101,6 +101,11 @@ public final class GroupingCSVDownload extends JobImplementation {
         return schoolYear != null && mode != -1;
     }
 
+    @Override
+    public String getProductKey() {
+        return productKey(pensenData, schoolYear, mode);
+    }
+
     @Override
     public long getStepCount() {
         return 2;
@@ -65,28 +65,36 @@ public final class InitializeSchoolYear extends JobImplementation {
     @Override
     public boolean parseData(JsonObject data) {
         schoolYear = pensenData.getSchoolYearById(data.getObjectId("schoolYear", -1));
-        if (schoolYear != null) {
-            schoolClasses = pensenData.streamSchoolClassesFor(schoolYear, null).collect(Collectors.toList());
-            previousSchoolYear = schoolYear.previous();
-            courses = new HashMap<>();
-            specialCourses = new HashMap<>();
-            loadCourses(courses, schoolYear, false);
-            loadCourses(courses, previousSchoolYear, false);
-            loadCourses(specialCourses, schoolYear, true);
-            loadCourses(specialCourses, previousSchoolYear, true);
-            stepCount += 1; // employments
-            stepCount += schoolClasses.size();
-            stepCount += 3;
-        }
-
         return schoolYear != null;
     }
 
+    @Override
+    public void loadData() {
+        schoolClasses = pensenData.streamSchoolClassesFor(schoolYear, null).collect(Collectors.toList());
+        previousSchoolYear = schoolYear.previous();
+        courses = new HashMap<>();
+        specialCourses = new HashMap<>();
+        loadCourses(courses, schoolYear, false);
+        loadCourses(courses, previousSchoolYear, false);
+        loadCourses(specialCourses, schoolYear, true);
+        loadCourses(specialCourses, previousSchoolYear, true);
+        stepCount = 1; // employments
+        stepCount += schoolClasses.size();
+        stepCount += 3;
+    }
+
     @Override
     public long getStepCount() {
         return stepCount;
     }
 
+    @Override
+    protected void releaseData() {
+        courses = null;
+        schoolClasses = null;
+        specialCourses = null;
+    }
+
     @Override
     public void run(Account creator, JobCallback callback) {
         copyEmployments(callback);
@@ -17,62 +17,130 @@
 package ch.kinet.pensen.job;
 
 import ch.kinet.Data;
+import ch.kinet.DataManager;
 import ch.kinet.Json;
 import ch.kinet.JsonArray;
 import ch.kinet.JsonObject;
-import ch.kinet.Log;
 import ch.kinet.pensen.data.Account;
 import ch.kinet.pensen.server.Authorisation;
 import ch.kinet.pensen.server.DB;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 public final class Job implements Json, JobCallback {
 
+    private static final int LOG_CAPACITY = 1000;
+
     public static final String JSON_ERROR = "error";
     public static final String JSON_ID = "id";
     public static final String JSON_LOG = "log";
     public static final String JSON_NAME = "name";
     public static final String JSON_PRODUCT = "product";
     public static final String JSON_PROGRESS = "progress";
+    public static final String JSON_QUEUE_POSITION = "queuePosition";
     public static final String JSON_RUNNING = "running";
+    public static final String JSON_SEQUENCE = "sequence";
     public static final String JSON_TITLE = "title";
     private Account creator;
+    private final Supplier<DataManager> dataManager;
     private final boolean global;
     private final int id;
-    private final Log log = Log.create();
+    private final JobLog log = new JobLog(LOG_CAPACITY);
     private final JobImplementation implementation;
-    private final Object lock = new Object();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private boolean active;
+    private boolean cancelled;
     private long totalCount;
     private int doneCount;
     private RuntimeException exception;
+    private volatile long lastAccessMillis;
     private String productId;
-    private Thread thread;
+    private String productKey;
+    private long productSize;
+    private long revision;
+
+    public Job(int id, boolean global, Account creator, JobImplementation implementation) {
+        this(id, global, creator, implementation, DB::getDataManager);
+    }
 
-    public Job(int id, boolean global, JobImplementation implementation) {
+    Job(int id, boolean global, Account creator, JobImplementation implementation, Supplier<DataManager> dataManager) {
+        this.creator = creator;
+        this.dataManager = dataManager;
         this.global = global;
         this.id = id;
         this.implementation = implementation;
         this.doneCount = 0;
         this.totalCount = 1;
+        this.lastAccessMillis = System.currentTimeMillis();
     }
 
     public Account getCreator() {
         return creator;
     }
 
+    /**
+     * Waits until the state of the job changes. The state changes when the job is started, its progress increases,
+     * a log entry is added or the job finishes.
+     *
+     * @param knownRevision the revision of the state known to the caller
+     * @param timeoutMillis the maximum time to wait in milliseconds
+     * @return the current revision, which equals <code>knownRevision</code> if the timeout has elapsed
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public long awaitChange(long knownRevision, long timeoutMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (revision == knownRevision && remaining > 0) {
+                remaining = changed.awaitNanos(remaining);
+            }
+
+            return revision;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
     public int getJobId() {
         return id;
     }
 
     public RuntimeException getException() {
-        synchronized (lock) {
+        lock.lock();
+        try {
             return exception;
         }
+        finally {
+            lock.unlock();
+        }
     }
 
     public String getProductId() {
-        synchronized (lock) {
+        lock.lock();
+        try {
             return productId;
         }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an estimate of the heap memory retained by the job, which consists of its log and its product.
+     */
+    public long getRetainedBytes() {
+        lock.lock();
+        try {
+            return log.estimateBytes() + productSize;
+        }
+        finally {
+            lock.unlock();
+        }
     }
 
     public boolean isAllowed(Authorisation authorisation) {
@@ -84,9 +152,24 @@ public final class Job implements Json, JobCallback {
         }
     }
 
+    @Override
+    public boolean isCancelled() {
+        lock.lock();
+        try {
+            return cancelled;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
     public boolean isFinished() {
-        synchronized (lock) {
-            return thread == null;
+        lock.lock();
+        try {
+            return !active;
+        }
+        finally {
+            lock.unlock();
         }
     }
 
@@ -94,45 +177,136 @@ public final class Job implements Json, JobCallback {
         return global;
     }
 
-    public boolean start(Account creator, JsonObject data) {
-        if (!isFinished()) {
-            return false;
+    /**
+     * Marks the job as accessed by a client. Local jobs which are not accessed for some time are evicted by
+     * {@link JobData}.
+     */
+    public void touch() {
+        lastAccessMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Requests the cancellation of the job. A queued job is removed from the queue and finishes immediately. A running
+     * job stops at its next step.
+     */
+    public void cancel() {
+        lock.lock();
+        try {
+            if (!active || cancelled) {
+                return;
+            }
+
+            cancelled = true;
+            changed();
+        }
+        finally {
+            lock.unlock();
         }
 
-        synchronized (lock) {
+        if (JobScheduler.getInstance().remove(this)) {
+            cancelled();
+        }
+    }
+
+    /**
+     * Starts the job. The job is queued and run as soon as the limits of the {@link JobScheduler} allow. If the
+     * scheduler rejects the job, it finishes immediately with an error message.
+     *
+     * @param creator the account starting the job
+     * @param data the parameters of the job
+     * @return <code>false</code> if the job is already running or the parameters are invalid
+     */
+    public boolean start(Account creator, JsonObject data) {
+        lock.lock();
+        try {
+            if (active) {
+                return false;
+            }
+
             log.clear();
             this.creator = creator;
-            implementation.initialize(DB.getDataManager());
+            implementation.initialize(dataManager.get());
+            implementation.setErrorMessage(null);
             if (!implementation.parseData(data)) {
                 return false;
             }
 
+            // loading the data counts as the first step, the step count is known after loading
             doneCount = 0;
-            totalCount = implementation.getStepCount();
+            totalCount = 1;
             exception = null;
-            thread = new JobThread(this, implementation);
-            thread.start();
-            return true;
+            cancelled = false;
+            productKey = implementation.getProductKey();
+            productSize = 0;
+            String memoised = DB.getProductStorage().find(productKey, getProductOwner());
+            if (memoised != null) {
+                // the product of an earlier job with unchanged parameters and data is reused
+                productId = memoised;
+                doneCount = 1;
+                finish();
+                return true;
+            }
+
+            active = true;
+            touch();
+            changed();
+        }
+        finally {
+            lock.unlock();
         }
+
+        if (!JobScheduler.getInstance().submit(this, implementation)) {
+            rejected();
+        }
+
+        return true;
     }
 
     @Override
     public void step() {
-        synchronized (lock) {
+        lock.lock();
+        try {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+
+            long progress = getProgress();
             ++doneCount;
+            if (getProgress() != progress) {
+                changed();
+            }
+        }
+        finally {
+            lock.unlock();
         }
     }
 
     @Override
     public final void info(String message, Object... args) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             log.info(message, args);
+            changed();
+        }
+        finally {
+            lock.unlock();
         }
     }
 
     @Override
     public JsonObject toJsonTerse() {
-        synchronized (lock) {
+        return toJsonTerse(-1);
+    }
+
+    /**
+     * Returns the state of the job including the log entries with a sequence number greater than the specified one.
+     *
+     * @param afterSequence the sequence number of the last log entry known to the client
+     * @return the state of the job
+     */
+    public JsonObject toJsonTerse(int afterSequence) {
+        lock.lock();
+        try {
             JsonObject result = JsonObject.create();
             result.put(JSON_ID, id);
             result.put(JSON_NAME, implementation.getName());
@@ -145,11 +319,19 @@ public final class Job implements Json, JobCallback {
             result.put(JSON_RUNNING, !isFinished());
             if (!isFinished()) {
                 result.put(JSON_PROGRESS, getProgress());
+                int queuePosition = JobScheduler.getInstance().getQueuePosition(this);
+                if (queuePosition > 0) {
+                    result.put(JSON_QUEUE_POSITION, queuePosition);
+                }
             }
 
-            result.put(JSON_LOG, JsonArray.createVerbose(log.streamEntries()));
+            result.put(JSON_SEQUENCE, log.getLastSequence());
+            result.put(JSON_LOG, JsonArray.createVerbose(log.streamEntries(afterSequence)));
             return result;
         }
+        finally {
+            lock.unlock();
+        }
     }
 
     @Override
@@ -158,26 +340,117 @@ public final class Job implements Json, JobCallback {
     }
 
     public void succeeded(Data result) {
-        synchronized (lock) {
+        String storedId = null;
+        if (result != null) {
+            // writing a large product must not block the clients polling the job, the product key and the creator
+            // are not changed before the job has finished
+            storedId = DB.getProductStorage().add(productKey, result, getProductOwner());
+        }
+
+        lock.lock();
+        try {
             this.exception = null;
             if (result != null) {
-                this.productId = DB.getFileStorage().addTemporaryFile(result);
+                this.productId = storedId;
+                this.productSize = result.getContent().length;
             }
 
-            this.thread = null;
+            finish();
+        }
+        finally {
+            lock.unlock();
         }
     }
 
     public void failed(RuntimeException exception) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             this.exception = exception;
             this.implementation.setErrorMessage(exception.toString());
             exception.printStackTrace();
             this.productId = null;
-            this.thread = null;
+            this.productSize = 0;
+            finish();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    void cancelled() {
+        lock.lock();
+        try {
+            implementation.setErrorMessage("Der Auftrag ist abgebrochen worden.");
+            this.productId = null;
+            this.productSize = 0;
+            finish();
+        }
+        finally {
+            lock.unlock();
         }
     }
 
+    long getIdleMillis() {
+        return System.currentTimeMillis() - lastAccessMillis;
+    }
+
+    void loaded(long stepCount) {
+        lock.lock();
+        try {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+
+            doneCount = 1;
+            totalCount = stepCount + 1;
+            changed();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    void queueChanged() {
+        lock.lock();
+        try {
+            changed();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void rejected() {
+        lock.lock();
+        try {
+            implementation.setErrorMessage("Der Server ist ausgelastet. Bitte starten Sie den Auftrag später erneut.");
+            finish();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void finish() {
+        active = false;
+        // the idle time of a finished job is measured from the end of the job
+        touch();
+        changed();
+    }
+
+    private void changed() {
+        ++revision;
+        changed.signalAll();
+    }
+
+    /**
+     * Returns the account which may read the product of the job, or <code>null</code> if every authenticated account
+     * may read it like the job itself.
+     */
+    private Account getProductOwner() {
+        return global ? null : creator;
+    }
+
     private long getProgress() {
         return 100 * doneCount / totalCount;
     }
@@ -20,5 +20,14 @@ public interface JobCallback {
 
     void info(String message, Object... args);
 
+    /**
+     * Returns whether the job has been cancelled. Jobs may check this before expensive operations.
+     */
+    boolean isCancelled();
+
+    /**
+     * Reports that a step of the job has been completed. If the job has been cancelled, a
+     * {@link java.util.concurrent.CancellationException} is thrown, so that the job stops at the next step.
+     */
     void step();
 }
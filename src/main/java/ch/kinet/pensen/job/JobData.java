@@ -19,19 +19,28 @@ package ch.kinet.pensen.job;
 import ch.kinet.BaseData;
 import ch.kinet.DataManager;
 import ch.kinet.Util;
+import ch.kinet.pensen.data.Account;
 import ch.kinet.pensen.data.PensenData;
 import ch.kinet.pensen.server.Authorisation;
+import ch.kinet.pensen.server.Configuration;
 import ch.kinet.pensen.server.DB;
 import ch.kinet.sql.Connection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public final class JobData extends BaseData {
 
     private final Map<String, Class<? extends JobImplementation>> jobRegistry = new HashMap<>();
-    private final Map<Integer, Job> jobs = new HashMap<>();
-    private int nextJobId = 0;
+    private final Object createLock = new Object();
+    private final Map<Integer, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger nextJobId = new AtomicInteger();
     private PensenData pensenData;
 
     @Override
@@ -63,7 +72,14 @@ public final class JobData extends BaseData {
         registerLocalJob(WorkloadMail.class);
     }
 
-    public Job createJob(Authorisation authorisation, String name) {
+    /**
+     * Creates the implementation of a local job.
+     *
+     * @param authorisation the authorisation of the account
+     * @param name the name of the job
+     * @return the implementation or <code>null</code> if there is no such job or the account may not run it
+     */
+    public JobImplementation createImplementation(Authorisation authorisation, String name) {
         if (Util.isEmpty(name)) {
             return null;
         }
@@ -80,13 +96,33 @@ public final class JobData extends BaseData {
             }
 
             implementation.initialize(DB.getDataManager());
-            return doCreateJob(implementation, false);
+            return implementation;
         }
         catch (Exception ex) {
             throw new RuntimeException(ex);
         }
     }
 
+    /**
+     * Creates a local job of the account. If the account already has the configured maximum number of jobs, its
+     * finished jobs are removed, starting with the least recently accessed one. Checking the limit and registering the
+     * job is atomic.
+     *
+     * @param authorisation the authorisation of the account
+     * @param implementation the implementation of the job
+     * @return the job or <code>null</code> if the account already has the maximum number of running jobs
+     */
+    public Job createJob(Authorisation authorisation, JobImplementation implementation) {
+        synchronized (createLock) {
+            evict();
+            if (!makeRoom(authorisation)) {
+                return null;
+            }
+
+            return doCreateJob(implementation, false, authorisation.getAccount());
+        }
+    }
+
     public void deleteJob(Job job) {
         jobs.remove(job.getJobId());
     }
@@ -96,17 +132,56 @@ public final class JobData extends BaseData {
     }
 
     public Stream<Job> getJobs() {
+        evict();
         return jobs.values().stream();
     }
 
+    /**
+     * Returns an estimate of the heap memory retained by all jobs.
+     */
+    public long getRetainedBytes() {
+        return jobs.values().stream().mapToLong(Job::getRetainedBytes).sum();
+    }
+
+    private boolean makeRoom(Authorisation authorisation) {
+        List<Job> own = jobs.values().stream()
+            .filter(job -> !job.isGlobal() && job.isAllowed(authorisation))
+            .sorted(Comparator.comparingLong(Job::getIdleMillis).reversed())
+            .collect(Collectors.toList());
+        int count = own.size();
+        int max = Configuration.getInstance().getJobMaxPerAccount();
+        for (Job job : own) {
+            if (count < max) {
+                break;
+            }
+
+            if (job.isFinished()) {
+                deleteJob(job);
+                --count;
+            }
+        }
+
+        return count < max;
+    }
+
+    /**
+     * Removes finished local jobs which have not been accessed by a client for the configured time. Running jobs are
+     * never evicted, since stopping a job with side effects like sending mails would leave its work half done. An
+     * abandoned job is evicted once it has finished and its idle time has elapsed.
+     */
+    private void evict() {
+        long ttlMillis = TimeUnit.MINUTES.toMillis(Configuration.getInstance().getJobTtlMinutes());
+        jobs.values().removeIf(job -> !job.isGlobal() && job.isFinished() && job.getIdleMillis() >= ttlMillis);
+    }
+
     private void createGlobalJob(JobImplementation implementation) {
-        doCreateJob(implementation, true);
+        doCreateJob(implementation, true, null);
     }
 
-    private Job doCreateJob(JobImplementation implementation, boolean global) {
-        Job job = new Job(nextJobId, global, implementation);
-        jobs.put(nextJobId, job);
-        ++nextJobId;
+    private Job doCreateJob(JobImplementation implementation, boolean global, Account creator) {
+        int id = nextJobId.getAndIncrement();
+        Job job = new Job(id, global, creator, implementation);
+        jobs.put(id, job);
         return job;
     }
 
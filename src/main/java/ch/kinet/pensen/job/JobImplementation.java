@@ -18,8 +18,11 @@ package ch.kinet.pensen.job;
 
 import ch.kinet.Data;
 import ch.kinet.DataManager;
+import ch.kinet.Entity;
 import ch.kinet.JsonObject;
 import ch.kinet.pensen.data.Account;
+import ch.kinet.pensen.data.PensenData;
+import ch.kinet.pensen.data.SchoolYear;
 import ch.kinet.pensen.server.Authorisation;
 
 public abstract class JobImplementation {
@@ -40,6 +43,16 @@ public abstract class JobImplementation {
         return getClass().getSimpleName();
     }
 
+    /**
+     * Returns a key identifying the product of the job or <code>null</code> if the product cannot be reused. A job
+     * whose product depends only on its parameters and the data of a school year returns a key created by
+     * {@link #productKey(PensenData, SchoolYear, Object...)}, so that an unchanged repeat request is answered with the
+     * product of an earlier job. This method is called after the parameters have been parsed.
+     */
+    public String getProductKey() {
+        return null;
+    }
+
     public final Data getProduct() {
         return product;
     }
@@ -56,12 +69,61 @@ public abstract class JobImplementation {
 
     public abstract boolean isAllowed(Authorisation authorisation);
 
+    /**
+     * Parses and validates the parameters of the job. This method is called on the request thread and must not load
+     * large amounts of data.
+     *
+     * @param data the parameters
+     * @return <code>true</code> if the parameters are valid
+     */
     public abstract boolean parseData(JsonObject data);
 
+    /**
+     * Loads the data processed by the job. This method is called on the job thread after the parameters have been
+     * parsed and before the step count is queried.
+     */
+    public void loadData() {
+    }
+
     public abstract long getStepCount();
 
+    /**
+     * Releases the data loaded by {@link #loadData()}. This method is called on the job thread after the job has
+     * finished, was cancelled or failed, but before the job reports its outcome. A global job reuses its
+     * implementation, so a restart never loads data while the previous run is still releasing it.
+     */
+    protected void releaseData() {
+    }
+
     public abstract void run(Account creator, JobCallback callback);
 
+    final void release() {
+        product = null;
+        releaseData();
+    }
+
+    /**
+     * Creates a product key from the name of the job, the data version of the school year and the parameters.
+     * Entities are represented by their id, missing parameters by an empty string.
+     */
+    protected final String productKey(PensenData pensenData, SchoolYear schoolYear, Object... parameters) {
+        StringBuilder result = new StringBuilder(getName());
+        result.append('/').append(schoolYear.getId());
+        // both versions only increase, so their sum changes whenever one of them changes
+        result.append('/').append(pensenData.getVersion(schoolYear) + pensenData.getReferenceVersion());
+        for (Object parameter : parameters) {
+            result.append('/');
+            if (parameter instanceof Entity) {
+                result.append(((Entity) parameter).getId());
+            }
+            else if (parameter != null) {
+                result.append(parameter);
+            }
+        }
+
+        return result.toString();
+    }
+
     protected final void setProduct(Data product) {
         this.product = product;
     }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.job;
+
+import ch.kinet.Json;
+import ch.kinet.JsonObject;
+import java.text.MessageFormat;
+import java.time.LocalDateTime;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Log of a job with a fixed capacity. When the log is full, the oldest entries are overwritten. Each entry has a
+ * sequence number which allows clients to fetch new entries incrementally. Sequence numbers are not reset when the
+ * log is cleared. This class is not thread-safe, access must be synchronised by the job.
+ */
+final class JobLog {
+
+    // approximate size of an entry object including its time stamp and the header of its message string
+    private static final int ENTRY_OVERHEAD_BYTES = 120;
+
+    private final Entry[] entries;
+    private int firstSequence;
+    private int nextSequence;
+
+    JobLog(int capacity) {
+        entries = new Entry[capacity];
+    }
+
+    void clear() {
+        firstSequence = nextSequence;
+    }
+
+    /**
+     * Returns an estimate of the heap memory retained by the log entries.
+     */
+    long estimateBytes() {
+        return streamEntries(-1).mapToLong(entry -> ENTRY_OVERHEAD_BYTES + 2L * entry.message.length()).sum();
+    }
+
+    /**
+     * Returns the sequence number of the last entry or -1 if no entry has been added yet.
+     */
+    int getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    void info(String message, Object... args) {
+        entries[nextSequence % entries.length] = new Entry(nextSequence, MessageFormat.format(message, args));
+        ++nextSequence;
+    }
+
+    /**
+     * Returns the retained entries with a sequence number greater than the specified one.
+     */
+    Stream<Entry> streamEntries(int afterSequence) {
+        int start = Math.max(afterSequence + 1, Math.max(firstSequence, nextSequence - entries.length));
+        return IntStream.range(start, nextSequence).mapToObj(sequence -> entries[sequence % entries.length]);
+    }
+
+    static final class Entry implements Json {
+
+        private static final String JSON_MESSAGE = "message";
+        private static final String JSON_SEQUENCE = "sequence";
+        private static final String JSON_TIME = "time";
+        private final String message;
+        private final int sequence;
+        private final LocalDateTime time;
+
+        Entry(int sequence, String message) {
+            this.message = message;
+            this.sequence = sequence;
+            this.time = LocalDateTime.now();
+        }
+
+        @Override
+        public JsonObject toJsonTerse() {
+            JsonObject result = JsonObject.create();
+            result.put(JSON_SEQUENCE, sequence);
+            result.put(JSON_TIME, time.toString());
+            result.put(JSON_MESSAGE, message);
+            return result;
+        }
+
+        @Override
+        public JsonObject toJsonVerbose() {
+            return toJsonTerse();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.job;
+
+import ch.kinet.pensen.server.Configuration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides when started jobs are run. At most a configured number of jobs run at the same time, and at most a
+ * configured number of jobs of the same type. Further jobs wait in a queue. Global jobs are queued before the jobs of
+ * users, jobs with the same priority are run in the order they have been started. A job is rejected if the queue is
+ * full or the heap is almost exhausted.
+ *
+ * The scheduler never calls a job while holding its own lock, so a job may query its queue position while holding the
+ * job lock.
+ */
+final class JobScheduler {
+
+    private static final JobScheduler INSTANCE = new JobScheduler();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Entry> queue = new ArrayList<>();
+    private final Map<String, Integer> runningPerType = new HashMap<>();
+    private int running;
+
+    static JobScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    private JobScheduler() {
+    }
+
+    /**
+     * Returns the position of a job in the queue.
+     *
+     * @param job the job
+     * @return the position starting with 1 or 0 if the job is not queued
+     */
+    int getQueuePosition(Job job) {
+        lock.lock();
+        try {
+            for (int i = 0; i < queue.size(); ++i) {
+                if (queue.get(i).job == job) {
+                    return i + 1;
+                }
+            }
+
+            return 0;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a job from the queue.
+     *
+     * @param job the job
+     * @return <code>true</code> if the job was queued, <code>false</code> if it is already running or finished
+     */
+    boolean remove(Job job) {
+        List<Entry> waiting;
+        lock.lock();
+        try {
+            if (!queue.removeIf(entry -> entry.job == job)) {
+                return false;
+            }
+
+            waiting = new ArrayList<>(queue);
+        }
+        finally {
+            lock.unlock();
+        }
+
+        waiting.forEach(entry -> entry.job.queueChanged());
+        return true;
+    }
+
+    /**
+     * Queues a job and runs it as soon as the limits allow.
+     *
+     * @param job the job
+     * @param implementation the implementation of the job
+     * @return <code>false</code> if the job has been rejected
+     */
+    boolean submit(Job job, JobImplementation implementation) {
+        Configuration config = Configuration.getInstance();
+        lock.lock();
+        try {
+            if (queue.size() >= config.getJobQueueCapacity() || isHeapExhausted(config)) {
+                return false;
+            }
+
+            Entry entry = new Entry(job, implementation);
+            int index = queue.size();
+            if (job.isGlobal()) {
+                // behind all other global jobs, but before the jobs of users
+                index = 0;
+                while (index < queue.size() && queue.get(index).job.isGlobal()) {
+                    ++index;
+                }
+            }
+
+            queue.add(index, entry);
+        }
+        finally {
+            lock.unlock();
+        }
+
+        dispatch();
+        return true;
+    }
+
+    void finished(JobImplementation implementation) {
+        lock.lock();
+        try {
+            --running;
+            runningPerType.computeIfPresent(implementation.getName(), (key, count) -> count > 1 ? count - 1 : null);
+        }
+        finally {
+            lock.unlock();
+        }
+
+        dispatch();
+    }
+
+    private void dispatch() {
+        Configuration config = Configuration.getInstance();
+        List<Entry> started = new ArrayList<>();
+        List<Entry> waiting;
+        lock.lock();
+        try {
+            Iterator<Entry> i = queue.iterator();
+            while (i.hasNext() && running < config.getJobWorkers()) {
+                Entry entry = i.next();
+                String type = entry.implementation.getName();
+                if (runningPerType.getOrDefault(type, 0) < config.getJobMaxPerType()) {
+                    i.remove();
+                    ++running;
+                    runningPerType.merge(type, 1, Integer::sum);
+                    started.add(entry);
+                }
+            }
+
+            waiting = new ArrayList<>(queue);
+        }
+        finally {
+            lock.unlock();
+        }
+
+        started.forEach(entry -> JobThread.start(entry.job, entry.implementation));
+        if (!started.isEmpty()) {
+            // the positions of the waiting jobs have changed
+            waiting.forEach(entry -> entry.job.queueChanged());
+        }
+    }
+
+    private static boolean isHeapExhausted(Configuration config) {
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        return used * 100 > runtime.maxMemory() * config.getJobMaxHeapPercent();
+    }
+
+    private static final class Entry {
+
+        private final JobImplementation implementation;
+        private final Job job;
+
+        Entry(Job job, JobImplementation implementation) {
+            this.implementation = implementation;
+            this.job = job;
+        }
+    }
+}
@@ -16,24 +16,73 @@
  */
 package ch.kinet.pensen.job;
 
-public final class JobThread extends Thread {
+import ch.kinet.Data;
+import ch.kinet.pensen.server.Configuration;
+import ch.kinet.pensen.server.Metrics;
+import java.util.concurrent.CancellationException;
+
+public final class JobThread implements Runnable {
 
     private final Job job;
     private final JobImplementation implementation;
 
-    public JobThread(Job job, JobImplementation implementation) {
+    /**
+     * Runs the job implementation on a new thread. If virtual threads are enabled in the configuration, a virtual
+     * thread is used.
+     *
+     * @param job the job to report progress and result to
+     * @param implementation the job implementation to run
+     * @return the started thread
+     */
+    static Thread start(Job job, JobImplementation implementation) {
+        JobThread runnable = new JobThread(job, implementation);
+        String name = "job-" + implementation.getName();
+        if (Configuration.getInstance().isVirtualThreadsEnabled()) {
+            return Thread.ofVirtual().name(name).start(runnable);
+        }
+
+        Thread result = new Thread(runnable, name);
+        result.start();
+        return result;
+    }
+
+    private JobThread(Job job, JobImplementation implementation) {
         this.job = job;
         this.implementation = implementation;
     }
 
     @Override
     public void run() {
+        long start = System.nanoTime();
+        Runnable outcome;
+        boolean succeeded = false;
         try {
+            implementation.loadData();
+            job.loaded(implementation.getStepCount());
             implementation.run(job.getCreator(), job);
-            job.succeeded(implementation.getProduct());
+            if (job.isCancelled()) {
+                outcome = job::cancelled;
+            }
+            else {
+                Data product = implementation.getProduct();
+                outcome = () -> job.succeeded(product);
+                succeeded = true;
+            }
+        }
+        catch (CancellationException ex) {
+            outcome = job::cancelled;
         }
         catch (RuntimeException ex) {
-            job.failed(ex);
+            outcome = () -> job.failed(ex);
         }
+        finally {
+            // A global job may be restarted as soon as it has finished and then reuses the same implementation, so
+            // the implementation is released and leaves the scheduler before the outcome is published.
+            implementation.release();
+            JobScheduler.getInstance().finished(implementation);
+        }
+
+        Metrics.recordJob(implementation.getName(), System.nanoTime() - start, succeeded);
+        outcome.run();
     }
 }
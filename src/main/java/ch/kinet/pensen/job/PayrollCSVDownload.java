@@ -56,6 +56,11 @@ public final class PayrollCSVDownload extends JobImplementation {
         return schoolYear != null && semester != null;
     }
 
+    @Override
+    public String getProductKey() {
+        return productKey(pensenData, schoolYear, semester);
+    }
+
     @Override
     public long getStepCount() {
         return 2;
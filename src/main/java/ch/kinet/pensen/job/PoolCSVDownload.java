@@ -51,6 +51,11 @@ public final class PoolCSVDownload extends JobImplementation {
         return schoolYear != null;
     }
 
+    @Override
+    public String getProductKey() {
+        return productKey(pensenData, schoolYear);
+    }
+
     @Override
     public long getStepCount() {
         return 2;
@@ -69,13 +69,19 @@ public final class SubjectCourseDownload extends JobImplementation {
     @Override
     public boolean parseData(JsonObject data) {
         schoolYear = pensenData.getSchoolYearById(data.getObjectId("schoolYear", -1));
-        if (schoolYear != null) {
-            loadMap();
-        }
-
         return schoolYear != null;
     }
 
+    @Override
+    public String getProductKey() {
+        return productKey(pensenData, schoolYear);
+    }
+
+    @Override
+    public void loadData() {
+        loadMap();
+    }
+
     @Override
     public long getStepCount() {
         return steps;
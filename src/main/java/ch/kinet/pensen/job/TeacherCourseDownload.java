@@ -24,6 +24,7 @@ import ch.kinet.pensen.data.Account;
 import ch.kinet.pensen.data.PensenData;
 import ch.kinet.pensen.data.SchoolYear;
 import ch.kinet.pensen.server.Authorisation;
+import java.time.LocalDate;
 
 public final class TeacherCourseDownload extends JobImplementation {
 
@@ -48,18 +49,30 @@ public final class TeacherCourseDownload extends JobImplementation {
     @Override
     public boolean parseData(JsonObject data) {
         schoolYear = pensenData.getSchoolYearById(data.getObjectId("schoolYear", -1));
-        if (schoolYear != null) {
-            workloads = pensenData.loadWorkloads(schoolYear, null);
-        }
-
         return schoolYear != null;
     }
 
+    @Override
+    public String getProductKey() {
+        // the PDF carries the date of its creation
+        return productKey(pensenData, schoolYear, LocalDate.now());
+    }
+
+    @Override
+    public void loadData() {
+        workloads = pensenData.loadWorkloads(schoolYear, null);
+    }
+
     @Override
     public long getStepCount() {
         return workloads.size();
     }
 
+    @Override
+    protected void releaseData() {
+        workloads = null;
+    }
+
     @Override
     public void run(Account creator, JobCallback callback) {
         Document pdf = Document.createPortrait(fileName());
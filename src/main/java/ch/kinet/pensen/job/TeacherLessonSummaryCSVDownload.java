@@ -54,6 +54,11 @@ public final class TeacherLessonSummaryCSVDownload extends JobImplementation {
         return schoolYear != null;
     }
 
+    @Override
+    public String getProductKey() {
+        return productKey(pensenData, schoolYear);
+    }
+
     @Override
     public long getStepCount() {
         return 2;
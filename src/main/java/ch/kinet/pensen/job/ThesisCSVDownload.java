@@ -56,6 +56,11 @@ public final class ThesisCSVDownload extends JobImplementation {
         return schoolYear != null;
     }
 
+    @Override
+    public String getProductKey() {
+        return productKey(pensenData, schoolYear);
+    }
+
     @Override
     public long getStepCount() {
         return 2;
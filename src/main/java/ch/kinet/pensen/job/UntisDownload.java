@@ -64,9 +64,18 @@ public final class UntisDownload extends JobImplementation {
             return false;
         }
 
+        return true;
+    }
+
+    @Override
+    public String getProductKey() {
+        return productKey(pensenData, schoolYear, semester);
+    }
+
+    @Override
+    public void loadData() {
         courses = pensenData.loadAllCourses(schoolYear).collect(Collectors.toList());
         schoolClasses = pensenData.streamSchoolClassesFor(schoolYear, null).collect(Collectors.toList());
-        return true;
     }
 
     @Override
@@ -74,6 +83,12 @@ public final class UntisDownload extends JobImplementation {
         return 2;
     }
 
+    @Override
+    protected void releaseData() {
+        courses = null;
+        schoolClasses = null;
+    }
+
     @Override
     public void run(Account creator, JobCallback callback) {
         CsvGenerator generator = new CsvGenerator(semester);
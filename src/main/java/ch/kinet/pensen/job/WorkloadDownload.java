@@ -28,9 +28,12 @@ import ch.kinet.pensen.data.PensenData;
 import ch.kinet.pensen.data.SchoolYear;
 import ch.kinet.pensen.data.Teacher;
 import ch.kinet.pensen.server.Authorisation;
+import java.time.LocalDate;
 
 public final class WorkloadDownload extends JobImplementation {
 
+    private Division division;
+    private Employment employment;
     private PensenData pensenData;
     private SchoolYear schoolYear;
     private Workload workload;
@@ -54,31 +57,49 @@ public final class WorkloadDownload extends JobImplementation {
     public boolean parseData(JsonObject data) {
         schoolYear = pensenData.getSchoolYearById(data.getObjectId("schoolYear", -1));
         Teacher teacher = pensenData.getTeacherById(data.getObjectId("teacher", -1));
-        Division division = pensenData.getDivisionById(data.getObjectId("division", -1));
+        division = pensenData.getDivisionById(data.getObjectId("division", -1));
         if (schoolYear == null) {
             return false;
         }
 
-        if (teacher == null) {
-            workloads = pensenData.loadWorkloads(schoolYear, division);
-        }
-        else {
-            Employment employment = pensenData.loadEmployment(schoolYear, teacher);
+        employment = null;
+        if (teacher != null) {
+            employment = pensenData.loadEmployment(schoolYear, teacher);
             if (employment == null) {
                 return false;
             }
-
-            workload = pensenData.loadWorkload(employment);
         }
 
         return true;
     }
 
+    @Override
+    public String getProductKey() {
+        // the PDF carries the date of its creation
+        return productKey(pensenData, schoolYear, division, employment, LocalDate.now());
+    }
+
+    @Override
+    public void loadData() {
+        if (employment == null) {
+            workloads = pensenData.loadWorkloads(schoolYear, division);
+        }
+        else {
+            workload = pensenData.loadWorkload(employment);
+        }
+    }
+
     @Override
     public long getStepCount() {
         return workloads == null ? 1 : workloads.size();
     }
 
+    @Override
+    protected void releaseData() {
+        workload = null;
+        workloads = null;
+    }
+
     @Override
     public void run(Account creator, JobCallback callback) {
         Document pdf = Document.createPortrait(fileName());
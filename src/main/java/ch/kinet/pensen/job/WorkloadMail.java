@@ -36,6 +36,8 @@ import ch.kinet.pensen.server.Configuration;
 
 public final class WorkloadMail extends JobImplementation {
 
+    private Division division;
+    private Employment employment;
     private PensenData pensenData;
     private SchoolYear schoolYear;
     private Workload workload;
@@ -67,7 +69,7 @@ public final class WorkloadMail extends JobImplementation {
     public boolean parseData(JsonObject data) {
         schoolYear = pensenData.getSchoolYearById(data.getObjectId("schoolYear", -1));
         Teacher teacher = pensenData.getTeacherById(data.getObjectId("teacher", -1));
-        Division division = pensenData.getDivisionById(data.getObjectId("division", -1));
+        division = pensenData.getDivisionById(data.getObjectId("division", -1));
         mailBody = data.getString("mailBody");
         mailFrom = data.getString("mailFrom");
         mailSubject = data.getString("mailSubject");
@@ -81,27 +83,39 @@ public final class WorkloadMail extends JobImplementation {
             return false;
         }
 
-        if (teacher == null) {
-            workloads = pensenData.loadWorkloads(schoolYear, division);
-        }
-        else {
-            Employment employment = pensenData.loadEmployment(schoolYear, teacher);
+        employment = null;
+        if (teacher != null) {
+            employment = pensenData.loadEmployment(schoolYear, teacher);
             if (employment == null) {
                 setErrorMessage("Eine Lehrperson mit Anstellung muss ausgewählt werden.");
                 return false;
             }
-
-            workload = pensenData.loadWorkload(employment);
         }
 
         return true;
     }
 
+    @Override
+    public void loadData() {
+        if (employment == null) {
+            workloads = pensenData.loadWorkloads(schoolYear, division);
+        }
+        else {
+            workload = pensenData.loadWorkload(employment);
+        }
+    }
+
     @Override
     public long getStepCount() {
         return workloads == null ? 1 : workloads.size();
     }
 
+    @Override
+    protected void releaseData() {
+        workload = null;
+        workloads = null;
+    }
+
     @Override
     public void run(Account creator, JobCallback callback) {
         checkEmailAddresses();
@@ -19,14 +19,98 @@ package ch.kinet.pensen.server;
 import ch.kinet.BaseData;
 import ch.kinet.http.Request;
 import ch.kinet.http.Response;
+import java.util.function.Supplier;
 
+/**
+ * Base class for request handlers. A single instance of each request handler is created by {@link Routes} and shared
+ * by all worker threads. Request handlers therefore must not store any request specific state in fields.
+ */
 public abstract class AbstractRequestHandler {
 
-    public abstract void initialize();
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_RETRY_AFTER = "Retry-After";
+    private static final String RETRY_AFTER_SECONDS = "5";
 
     public abstract Response handleRequest(Request<Authorisation> request, String resourceId);
 
+    /**
+     * Returns whether a request is expensive. Expensive requests are subject to admission control, see
+     * {@link AdmissionControl}. Admission is requested after the request has been authorised, so that rejected
+     * requests do not take a permit. Admission control applies to reads and to POST requests of global resources.
+     *
+     * @param request the request
+     * @param resourceId the resource id or <code>null</code>
+     * @return <code>true</code> if the request is expensive
+     */
+    protected boolean isExpensive(Request<Authorisation> request, String resourceId) {
+        return false;
+    }
+
+    /**
+     * Creates the response of an authorised request. An expensive request is only handled if it is admitted by the
+     * {@link AdmissionControl}, otherwise a <i>too many requests</i> response is sent.
+     *
+     * @param request the request
+     * @param resourceId the resource id or <code>null</code>
+     * @param handler creates the response
+     * @return the response
+     */
+    protected final Response admit(Request<Authorisation> request, String resourceId, Supplier<Response> handler) {
+        if (!isExpensive(request, resourceId)) {
+            return handler.get();
+        }
+
+        if (!AdmissionControl.enter(request.getAuthorisation().getAccount())) {
+            Response response = Response.tooManyRequests();
+            response.setHeader(HEADER_RETRY_AFTER, RETRY_AFTER_SECONDS);
+            return response;
+        }
+
+        try {
+            return handler.get();
+        }
+        finally {
+            // releases the permit unless it has been handed over to a streamed response
+            AdmissionControl.leave();
+        }
+    }
+
     protected final <T extends BaseData> T getData(Class<T> clazz) {
         return DB.getDataManager().getData(clazz);
     }
+
+    /**
+     * Handles a conditional GET request. If the client already has the representation identified by the entity tag,
+     * a <i>not modified</i> response is sent. Otherwise, the response is created and the entity tag is attached if the
+     * response is successful. Error responses are never tagged, so that a client does not revalidate an error.
+     *
+     * @param request the request
+     * @param entityTag the current entity tag or <code>null</code> if the response cannot be tagged
+     * @param handler creates the response
+     * @return the response
+     */
+    protected final Response conditionalGet(Request<Authorisation> request, String entityTag,
+                                            Supplier<Response> handler) {
+        if (entityTag == null) {
+            return handler.get();
+        }
+
+        Response response;
+        if (EntityTag.matches(request.getHeader(HEADER_IF_NONE_MATCH), entityTag)) {
+            response = Response.notModified();
+        }
+        else {
+            response = handler.get();
+            int status = response.getStatus();
+            if (status < 200 || status >= 300) {
+                return response;
+            }
+        }
+
+        response.setHeader(HEADER_ETAG, entityTag);
+        response.setHeader(HEADER_CACHE_CONTROL, "no-cache");
+        return response;
+    }
 }
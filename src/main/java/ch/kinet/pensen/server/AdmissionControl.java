@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.pensen.data.Account;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of expensive requests executed concurrently, both per account and in total. An expensive request
+ * exceeding a limit waits until another expensive request finishes. Only a few requests may wait at the same time,
+ * so that the worker threads remain available for cheap requests. A request that cannot be admitted in time is
+ * rejected.
+ *
+ * The permit of an admitted request is bound to the worker thread. If the request handler creates a streamed
+ * response, the permit is handed over to the response body. It is released when the body has been written, writing
+ * has failed or the body has not been started in time.
+ */
+final class AdmissionControl {
+
+    private static final ThreadLocal<Permit> CURRENT = new ThreadLocal<>();
+    private static final AdmissionControl INSTANCE = new AdmissionControl();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final Map<Account, Integer> running = new HashMap<>();
+    private int runningTotal;
+    private int waiting;
+
+    /**
+     * Admits an expensive request of the specified account on the current thread.
+     *
+     * @param account the account issuing the request or <code>null</code> for anonymous requests
+     * @return <code>true</code> if the request has been admitted, <code>false</code> if it must be rejected
+     */
+    static boolean enter(Account account) {
+        if (!INSTANCE.acquire(account)) {
+            return false;
+        }
+
+        CURRENT.set(INSTANCE.new Permit(account));
+        return true;
+    }
+
+    /**
+     * Detaches the permit of the current request from the thread.
+     *
+     * @return releases the permit or <code>null</code> if the current request holds no permit
+     */
+    static Runnable detach() {
+        Permit result = CURRENT.get();
+        CURRENT.remove();
+        return result == null ? null : result::release;
+    }
+
+    /**
+     * Releases the permit of the current request if it is still bound to the thread.
+     */
+    static void leave() {
+        Runnable release = detach();
+        if (release != null) {
+            release.run();
+        }
+    }
+
+    private AdmissionControl() {
+    }
+
+    private boolean acquire(Account account) {
+        Configuration config = Configuration.getInstance();
+        lock.lock();
+        try {
+            if (!isAvailable(account, config) && waiting >= config.getAdmissionMaxWaiting()) {
+                return false;
+            }
+
+            long remaining = TimeUnit.MILLISECONDS.toNanos(config.getAdmissionWaitMillis());
+            ++waiting;
+            try {
+                while (!isAvailable(account, config)) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+
+                    remaining = released.awaitNanos(remaining);
+                }
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            finally {
+                --waiting;
+            }
+
+            running.merge(account, 1, Integer::sum);
+            ++runningTotal;
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isAvailable(Account account, Configuration config) {
+        return runningTotal < config.getAdmissionMaxTotal() &&
+            running.getOrDefault(account, 0) < config.getAdmissionMaxPerAccount();
+    }
+
+    private void release(Account account) {
+        lock.lock();
+        try {
+            running.computeIfPresent(account, (key, count) -> count > 1 ? count - 1 : null);
+            --runningTotal;
+            released.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private final class Permit {
+
+        private final Account account;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Account account) {
+            this.account = account;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                AdmissionControl.this.release(account);
+            }
+        }
+    }
+}
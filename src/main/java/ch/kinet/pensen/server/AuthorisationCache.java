@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.pensen.data.Account;
+import io.jsonwebtoken.Claims;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the authorisations resolved from verified tokens until the tokens expire. The cache is bounded, the least
+ * recently used entries are evicted first. Entries are keyed by a hash of the claims identifying the token, so the
+ * cache does not hold any token content.
+ *
+ * Each account has a generation, which is incremented when its authorisations are invalidated. An authorisation
+ * resolved while the account was invalidated is not kept, since it may have been resolved from the old permissions.
+ */
+final class AuthorisationCache {
+
+    private static final String[] KEY_CLAIMS = {"aud", "unique_name", "iat", "exp", "uti", "jti"};
+    private static final int MAX_ENTRIES = 10000;
+    private static final AuthorisationCache INSTANCE = new AuthorisationCache();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    static AuthorisationCache getInstance() {
+        return INSTANCE;
+    }
+
+    private AuthorisationCache() {
+    }
+
+    /**
+     * Returns the cached authorisation for the token described by the claims.
+     *
+     * @param key the cache key computed by {@link #key(Claims)}
+     * @return the authorisation or <code>null</code> if it is not cached or has expired
+     */
+    Authorisation get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        if (entry.expiresAt <= now) {
+            entries.remove(key, entry);
+            return null;
+        }
+
+        entry.lastUsed = now;
+        return entry.authorisation;
+    }
+
+    /**
+     * Returns the generation of an account. It must be read before the account is loaded and passed to
+     * {@link #put(String, Authorisation, Date, long)}.
+     *
+     * @param accountName the name of the account
+     * @return the generation
+     */
+    long generation(String accountName) {
+        AtomicLong result = generations.get(accountName);
+        return result == null ? 0 : result.get();
+    }
+
+    /**
+     * Removes all cached authorisations of an account. Must be called when the permissions of an account change or
+     * the account is deleted.
+     *
+     * @param account the account
+     */
+    void invalidate(Account account) {
+        // the generation is incremented first, so that a concurrent put either sees it or is removed here
+        generations.computeIfAbsent(account.getName(), name -> new AtomicLong()).incrementAndGet();
+        entries.values().removeIf(entry -> entry.authorisation.isAccount(account));
+    }
+
+    /**
+     * Caches an authorisation. The authorisation is not kept if the account has been invalidated since the specified
+     * generation has been read.
+     *
+     * @param key the cache key computed by {@link #key(Claims)}
+     * @param authorisation the authorisation
+     * @param expiration the expiration of the token
+     * @param generation the generation of the account read by {@link #generation(String)} before loading it
+     */
+    void put(String key, Authorisation authorisation, Date expiration, long generation) {
+        if (expiration == null || key == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(authorisation, expiration.getTime(), now);
+        entries.put(key, entry);
+        if (generation(authorisation.getAccount().getName()) != generation) {
+            entries.remove(key, entry);
+            return;
+        }
+
+        if (entries.size() > MAX_ENTRIES) {
+            evict(now);
+        }
+    }
+
+    /**
+     * Computes the cache key of a token from its identifying claims.
+     *
+     * @param claims the verified claims
+     * @return the cache key or <code>null</code> if the token has no expiration
+     */
+    static String key(Claims claims) {
+        if (claims.getExpiration() == null) {
+            return null;
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (String claim : KEY_CLAIMS) {
+            text.append(claims.get(claim)).append('\n');
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(text.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private synchronized void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        int excess = entries.size() - MAX_ENTRIES;
+        if (excess <= 0) {
+            return;
+        }
+
+        List<Map.Entry<String, Entry>> candidates = new ArrayList<>(entries.entrySet());
+        candidates.sort(Comparator.comparingLong(item -> item.getValue().lastUsed));
+        for (int i = 0; i < excess && i < candidates.size(); ++i) {
+            entries.remove(candidates.get(i).getKey(), candidates.get(i).getValue());
+        }
+    }
+
+    private static final class Entry {
+
+        private final Authorisation authorisation;
+        private final long expiresAt;
+        private volatile long lastUsed;
+
+        Entry(Authorisation authorisation, long expiresAt, long lastUsed) {
+            this.authorisation = authorisation;
+            this.expiresAt = expiresAt;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -26,10 +26,9 @@ import java.util.Set;
 
 public final class AuthorisationResource extends EntityResource<Account> {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public AuthorisationResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -44,7 +43,7 @@ public final class AuthorisationResource extends EntityResource<Account> {
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
+    protected Response get(Authorisation authorisation, Account object, Query query) {
         return Response.jsonVerbose(object);
     }
 
@@ -63,7 +62,7 @@ public final class AuthorisationResource extends EntityResource<Account> {
     }
 
     @Override
-    protected Response update(Authorisation authorisation, JsonObject data) {
+    protected Response update(Authorisation authorisation, Account object, JsonObject data) {
         boolean editAllowed = data.getBoolean(Account.JSON_EDIT_ALLOWED, false);
         boolean grantAllowed = data.getBoolean(Account.JSON_GRANT_ALLOWED, false);
 
@@ -84,18 +83,20 @@ public final class AuthorisationResource extends EntityResource<Account> {
 
         if (!changed.isEmpty()) {
             pensenData.updateAuthorisation(object, changed);
+            AuthorisationCache.getInstance().invalidate(object);
         }
 
         return Response.noContent();
     }
 
     @Override
-    protected Response delete(Authorisation authorisation) {
+    protected Response delete(Authorisation authorisation, Account object) {
         if (authorisation.isAccount(object)) {
             return Response.badRequest("Das eigene Benutzerkonto kann nicht gelöscht werden.");
         }
 
         pensenData.deleteAccount(object);
+        AuthorisationCache.getInstance().invalidate(object);
         return Response.noContent();
     }
 
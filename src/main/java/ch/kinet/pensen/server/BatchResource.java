@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.JsonArray;
+import ch.kinet.JsonObject;
+import ch.kinet.Util;
+import ch.kinet.http.Request;
+import ch.kinet.http.Response;
+import ch.kinet.pensen.data.PensenData;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Executes an ordered list of course, pool entry, posting and thesis mutations in one database transaction. The
+ * balance of each affected teacher is recalculated once after all mutations have been executed. If a mutation fails,
+ * the remaining mutations are skipped and the whole batch is rolled back. Each result contains the status of the
+ * operation and, for created objects, the same body as the response of the resource.
+ */
+public final class BatchResource extends GlobalResource {
+
+    private static final String JSON_BODY = "body";
+    private static final String JSON_COMMITTED = "committed";
+    private static final String JSON_DATA = "data";
+    private static final String JSON_ID = "id";
+    private static final String JSON_METHOD = "method";
+    private static final String JSON_OPERATIONS = "operations";
+    private static final String JSON_RESOURCE = "resource";
+    private static final String JSON_RESULTS = "results";
+    private static final String JSON_STATUS = "status";
+    private static final int MAX_OPERATIONS = 500;
+    private static final String[] RESOURCES = {"course", "poolentry", "posting", "thesis"};
+    private final PensenData pensenData;
+
+    public BatchResource() {
+        pensenData = getData(PensenData.class);
+    }
+
+    @Override
+    protected boolean isExpensive(Request<Authorisation> request, String resourceId) {
+        return request.getMethod() == Request.Method.Post;
+    }
+
+    @Override
+    protected boolean isPostAllowed(Authorisation authorisation, JsonObject data) {
+        return authorisation.isEditAllowed();
+    }
+
+    @Override
+    protected Response post(Authorisation authorisation, JsonObject data) {
+        JsonArray operations = data.getArray(JSON_OPERATIONS);
+        if (operations == null || operations.length() == 0) {
+            return Response.badRequest("Es wurden keine Operationen angegeben.");
+        }
+
+        if (operations.length() > MAX_OPERATIONS) {
+            return Response.badRequest("Es sind höchstens " + MAX_OPERATIONS + " Operationen erlaubt.");
+        }
+
+        JsonArray results = JsonArray.create();
+        boolean committed = pensenData.executeBatch(() -> {
+            for (int i = 0; i < operations.length(); ++i) {
+                AtomicReference<JsonObject> body = new AtomicReference<>();
+                int status = execute(authorisation, operations.getObject(i), body);
+                JsonObject result = JsonObject.create();
+                result.put(JSON_STATUS, status);
+                if (body.get() != null) {
+                    result.put(JSON_BODY, body.get());
+                }
+
+                results.add(result);
+                if (status >= 400) {
+                    return false;
+                }
+            }
+
+            return true;
+        });
+
+        JsonObject result = JsonObject.create();
+        result.put(JSON_COMMITTED, committed);
+        result.put(JSON_RESULTS, results);
+        return Response.json(result);
+    }
+
+    private int execute(Authorisation authorisation, JsonObject operation, AtomicReference<JsonObject> body) {
+        if (operation == null) {
+            return Response.badRequest().getStatus();
+        }
+
+        ObjectResource<?> resource = findResource(operation.getString(JSON_RESOURCE));
+        Request.Method method = parseMethod(operation.getString(JSON_METHOD));
+        if (resource == null || method == null) {
+            return Response.badRequest().getStatus();
+        }
+
+        String resourceId = operation.getString(JSON_ID);
+        JsonObject data = operation.getObject(JSON_DATA);
+        if (data == null) {
+            data = JsonObject.create();
+        }
+
+        return resource.executeMutation(authorisation, method, resourceId, data, body);
+    }
+
+    private static ObjectResource<?> findResource(String name) {
+        for (String resource : RESOURCES) {
+            if (resource.equals(name)) {
+                return (ObjectResource<?>) Routes.getResource(name);
+            }
+        }
+
+        return null;
+    }
+
+    private static Request.Method parseMethod(String method) {
+        if (Util.isEmpty(method)) {
+            return null;
+        }
+
+        switch (method.toUpperCase()) {
+            case "DELETE":
+                return Request.Method.Delete;
+            case "POST":
+                return Request.Method.Post;
+            case "PUT":
+                return Request.Method.Put;
+            default:
+                return null;
+        }
+    }
+}
@@ -23,10 +23,9 @@ import ch.kinet.pensen.data.PensenData;
 
 public final class CalculationModeResource extends EntityResource<CalculationMode> {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public CalculationModeResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -40,6 +39,11 @@ public final class CalculationModeResource extends EntityResource<CalculationMod
         return Response.jsonArrayTerse(pensenData.streamCalculationModes());
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return EntityTag.create(pensenData.getVersion(CalculationMode.class));
+    }
+
     @Override
     protected CalculationMode loadObject(int id) {
         return pensenData.getCalculationModeById(id);
@@ -28,12 +28,11 @@ public final class ConfigResource extends GlobalResource {
     private static final String JSON_TENANT_ID = "tenantId";
     private static final String JSON_TOKEN_REFRESH_OFFSET_MINUTES = "tokenRefreshOffsetMinutes";
     private static final String JSON_VERSION = "version";
-    private String clientId;
-    private String tenantId;
-    private int percentDecimals;
+    private final String clientId;
+    private final String tenantId;
+    private final int percentDecimals;
 
-    @Override
-    public void initialize() {
+    public ConfigResource() {
         Configuration config = Configuration.getInstance();
         clientId = config.getMicrosoftClient();
         tenantId = config.getMicrosoftTenant();
@@ -28,14 +28,34 @@ import java.util.Properties;
  */
 public final class Configuration {
 
+    private static final String ADMISSION_MAX_PER_ACCOUNT = "admission.maxperaccount";
+    private static final String ADMISSION_MAX_TOTAL = "admission.maxtotal";
+    private static final String ADMISSION_MAX_WAITING = "admission.maxwaiting";
+    private static final String ADMISSION_WAIT_MILLIS = "admission.waitmillis";
     private static final String CLIENT_FEATURES = "client.features";
+    private static final String COMPRESSION_ENABLED = "compression.enabled";
+    private static final String COMPRESSION_LEVEL = "compression.level";
+    private static final String COMPRESSION_THRESHOLD = "compression.threshold";
+    private static final String DB_MAX_CONCURRENCY = "db.maxconcurrency";
     private static final String DB_NAME = "db.name";
     private static final String DB_PORT = "db.port";
+    private static final String DB_REPEATED_QUERY_THRESHOLD = "db.repeatedquerythreshold";
     private static final String DB_SERVER = "db.server";
+    private static final String DB_SLOW_QUERY_MILLIS = "db.slowquerymillis";
     private static final String DB_PASSWORD = "db.password";
     private static final String DB_SCHEMA = "db.schema";
     private static final String DB_USER = "db.user";
+    private static final String EVENTS_MAX_PER_ACCOUNT = "events.maxperaccount";
+    private static final String EVENTS_MAX_TOTAL = "events.maxtotal";
+    private static final String EXCEPTION_MAIL_INTERVAL = "exceptionmail.interval";
+    private static final String EXCEPTION_MAIL_MAX = "exceptionmail.max";
     private static final String HTTP_PORT = "http.port";
+    private static final String JOB_MAX_HEAP_PERCENT = "job.maxheappercent";
+    private static final String JOB_MAX_PER_ACCOUNT = "job.maxperaccount";
+    private static final String JOB_MAX_PER_TYPE = "job.maxpertype";
+    private static final String JOB_QUEUE_CAPACITY = "job.queuecapacity";
+    private static final String JOB_TTL_MINUTES = "job.ttlminutes";
+    private static final String JOB_WORKERS = "job.workers";
     private static final String TEST_ENABLED = "test.enabled";
     private static final String TEST_MAIL_TO = "test.mailto";
     private static final String MICROSOFT_CLIENT = "microsoft.client";
@@ -43,11 +63,16 @@ public final class Configuration {
     private static final String PERCENT_DECIMALS = "percentDecimals";
     private static final String PROXY_SERVER = "proxy.server";
     private static final String PROXY_USER = "proxy.user";
+    private static final String RESPONSE_CACHE_MILLIS = "responsecache.millis";
     private static final String SERVER_WORKER_THREADS = "server.workerthreads";
     private static final String SERVER_IO_THREADS = "server.iothreads";
+    private static final String SERVER_VIRTUAL_THREADS = "server.virtualthreads";
     private static final String SMTP_FROM = "smtp.from";
     private static final String SMTP_PORT = "smtp.port";
     private static final String SMTP_SERVER = "smtp.server";
+    private static final String STORAGE_DIRECTORY = "storage.directory";
+    private static final String STORAGE_MAX_AGE_MINUTES = "storage.maxageminutes";
+    private static final String STORAGE_MAX_MEGABYTES = "storage.maxmegabytes";
     private static final String SUPPORT_MAIL = "support.mail";
     private final String dbSchema;
     private final DbSpec dbSpec;
@@ -105,10 +130,38 @@ public final class Configuration {
         return Mailer.createMailer(getString(SMTP_SERVER), getInt(SMTP_PORT, 25), mailFrom);
     }
 
+    public int getAdmissionMaxPerAccount() {
+        return getInt(ADMISSION_MAX_PER_ACCOUNT, 2);
+    }
+
+    public int getAdmissionMaxTotal() {
+        return getInt(ADMISSION_MAX_TOTAL, 4);
+    }
+
+    public int getAdmissionMaxWaiting() {
+        return getInt(ADMISSION_MAX_WAITING, 4);
+    }
+
+    public int getAdmissionWaitMillis() {
+        return getInt(ADMISSION_WAIT_MILLIS, 10000);
+    }
+
     public String getClientFeatures() {
         return getString(CLIENT_FEATURES);
     }
 
+    public int getCompressionLevel() {
+        return getInt(COMPRESSION_LEVEL, 6);
+    }
+
+    public int getCompressionThreshold() {
+        return getInt(COMPRESSION_THRESHOLD, 1024);
+    }
+
+    public int getDbMaxConcurrency() {
+        return getInt(DB_MAX_CONCURRENCY, 10);
+    }
+
     public DbSpec getDbSpec() {
         return dbSpec;
     }
@@ -117,10 +170,51 @@ public final class Configuration {
         return dbSchema;
     }
 
+    public int getEventsMaxPerAccount() {
+        return getInt(EVENTS_MAX_PER_ACCOUNT, 3);
+    }
+
+    public int getEventsMaxTotal() {
+        // event streams occupy a request thread each, which is cheap only for virtual threads
+        return getInt(EVENTS_MAX_TOTAL, isVirtualThreadsEnabled() ? 1000 : Math.max(1, getServerWorkerThreads() / 4));
+    }
+
+    public int getExceptionMailIntervalMinutes() {
+        return getInt(EXCEPTION_MAIL_INTERVAL, 10);
+    }
+
+    public int getExceptionMailsPerInterval() {
+        return getInt(EXCEPTION_MAIL_MAX, 3);
+    }
+
     public int getHttpPort() {
         return getInt(HTTP_PORT, 9001);
     }
 
+    public int getJobMaxHeapPercent() {
+        return getInt(JOB_MAX_HEAP_PERCENT, 85);
+    }
+
+    public int getJobMaxPerAccount() {
+        return getInt(JOB_MAX_PER_ACCOUNT, 5);
+    }
+
+    public int getJobMaxPerType() {
+        return getInt(JOB_MAX_PER_TYPE, 2);
+    }
+
+    public int getJobQueueCapacity() {
+        return getInt(JOB_QUEUE_CAPACITY, 50);
+    }
+
+    public int getJobTtlMinutes() {
+        return getInt(JOB_TTL_MINUTES, 30);
+    }
+
+    public int getJobWorkers() {
+        return getInt(JOB_WORKERS, 4);
+    }
+
     public String getMicrosoftClient() {
         return getString(MICROSOFT_CLIENT);
     }
@@ -133,6 +227,14 @@ public final class Configuration {
         return getInt(PERCENT_DECIMALS, 3);
     }
 
+    public int getRepeatedQueryThreshold() {
+        return getInt(DB_REPEATED_QUERY_THRESHOLD, 20);
+    }
+
+    public int getResponseCacheMillis() {
+        return getInt(RESPONSE_CACHE_MILLIS, 60000);
+    }
+
     public int getServerIoThreads() {
         return getInt(SERVER_IO_THREADS, 2);
     }
@@ -141,6 +243,23 @@ public final class Configuration {
         return getInt(SERVER_WORKER_THREADS, 10);
     }
 
+    public int getSlowQueryMillis() {
+        return getInt(DB_SLOW_QUERY_MILLIS, 500);
+    }
+
+    public String getStorageDirectory() {
+        String result = getString(STORAGE_DIRECTORY);
+        return result.isEmpty() ? null : result;
+    }
+
+    public int getStorageMaxAgeMinutes() {
+        return getInt(STORAGE_MAX_AGE_MINUTES, 60);
+    }
+
+    public int getStorageMaxMegabytes() {
+        return getInt(STORAGE_MAX_MEGABYTES, 512);
+    }
+
     public String getSupportMail() {
         return getString(SUPPORT_MAIL);
     }
@@ -149,14 +268,27 @@ public final class Configuration {
         return getString(TEST_MAIL_TO);
     }
 
+    public boolean isCompressionEnabled() {
+        return getBoolean(COMPRESSION_ENABLED, true);
+    }
+
     public boolean isTestSystem() {
         return getBoolean(TEST_ENABLED);
     }
 
+    public boolean isVirtualThreadsEnabled() {
+        return getBoolean(SERVER_VIRTUAL_THREADS);
+    }
+
     private boolean getBoolean(String key) {
         return Boolean.parseBoolean(properties.getProperty(key));
     }
 
+    private boolean getBoolean(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        return Util.isEmpty(value) ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
     private int getInt(String key, int defaultValue) {
         return Util.parseInt(properties.getProperty(key), defaultValue);
     }
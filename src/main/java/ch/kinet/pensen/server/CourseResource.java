@@ -32,6 +32,7 @@ import ch.kinet.pensen.data.SchoolClass;
 import ch.kinet.pensen.data.SchoolYear;
 import ch.kinet.pensen.data.SemesterEnum;
 import ch.kinet.pensen.data.Subject;
+import ch.kinet.pensen.data.SubjectCategory;
 import ch.kinet.pensen.data.Teacher;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -42,12 +43,16 @@ import java.util.stream.Stream;
 
 public final class CourseResource extends EntityResource<Course> {
 
+    private static final String QUERY_CANCELLED = "cancelled";
     private static final String QUERY_CROSS_CLASS = "crossClass";
+    private static final String QUERY_DIVISION = "division";
+    private static final String QUERY_OPEN = "open";
     private static final String QUERY_SCHOOL_YEAR = "schoolYear";
-    private PensenData pensenData;
+    private static final String QUERY_SUBJECT_CATEGORY = "subjectCategory";
+    private static final String QUERY_TEACHER = "teacher";
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public CourseResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -67,22 +72,51 @@ public final class CourseResource extends EntityResource<Course> {
             return Response.notFound();
         }
 
-        if (query.hasKey(QUERY_CROSS_CLASS)) {
-            boolean crossClass = query.getBoolean(QUERY_CROSS_CLASS, true);
-            return Response.jsonArrayTerse(pensenData.loadCourses(schoolYear, crossClass));
+        Boolean crossClass = query.hasKey(QUERY_CROSS_CLASS) ? query.getBoolean(QUERY_CROSS_CLASS, true) : null;
+        Boolean cancelled = query.hasKey(QUERY_CANCELLED) ? query.getBoolean(QUERY_CANCELLED, false) : null;
+        Division division = pensenData.getDivisionById(query.getInt(QUERY_DIVISION, -1));
+        if (division == null && query.hasKey(QUERY_DIVISION)) {
+            return Response.notFound();
         }
-        else {
-            return Response.jsonArrayTerse(pensenData.loadAllCourses(schoolYear));
+
+        SubjectCategory subjectCategory = pensenData.getSubjectCategoryById(query.getInt(QUERY_SUBJECT_CATEGORY, -1));
+        if (subjectCategory == null && query.hasKey(QUERY_SUBJECT_CATEGORY)) {
+            return Response.notFound();
+        }
+
+        Teacher teacher = pensenData.getTeacherById(query.getInt(QUERY_TEACHER, -1));
+        if (teacher == null && query.hasKey(QUERY_TEACHER)) {
+            return Response.notFound();
+        }
+
+        boolean open = query.getBoolean(QUERY_OPEN, false);
+        Stream<Course> result = pensenData.loadCourses(schoolYear, crossClass, cancelled);
+        if (division != null) {
+            result = result.filter(course -> course.isCrossClass() || course.divisions().anyMatch(division::equals));
+        }
+
+        if (subjectCategory != null) {
+            result = result.filter(course -> course.getSubject().filter(subjectCategory));
         }
+
+        if (teacher != null) {
+            result = result.filter(course -> course.contains(teacher));
+        }
+
+        if (open) {
+            result = result.filter(Course::isOpen);
+        }
+
+        return listTerse(query, result);
     }
 
     @Override
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    protected boolean isGetAllowed(Authorisation authorisation, Course object, Query query) {
         return authorisation.isAuthenticated();
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
+    protected Response get(Authorisation authorisation, Course object, Query query) {
         return Response.jsonVerbose(object);
     }
 
@@ -180,18 +214,16 @@ public final class CourseResource extends EntityResource<Course> {
                                 Course.DB_SCHOOL_CLASS_IDS, Course.DB_TEACHER_IDS_1, Course.DB_TEACHER_IDS_2));
         teachers1.addAll(teachers2);
         teachers1.stream().forEachOrdered(teacher -> pensenData.recalculateBalance(schoolYear, teacher));
-        return Response.createdJsonVerbose(result);
+        return created(result);
     }
 
     @Override
-    protected boolean isUpdateAllowed(Authorisation authorisation, JsonObject data
-    ) {
+    protected boolean isUpdateAllowed(Authorisation authorisation, Course object, JsonObject data) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response update(Authorisation authorisation, JsonObject data
-    ) {
+    protected Response update(Authorisation authorisation, Course object, JsonObject data) {
         if (object.getSchoolYear().isArchived()) {
             return Response.badRequest("Kurse in archivierten Schuljahren können nicht verändert werden.");
         }
@@ -267,12 +299,12 @@ public final class CourseResource extends EntityResource<Course> {
     }
 
     @Override
-    protected boolean isDeleteAllowed(Authorisation authorisation) {
+    protected boolean isDeleteAllowed(Authorisation authorisation, Course object) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response delete(Authorisation authorisation) {
+    protected Response delete(Authorisation authorisation, Course object) {
         if (object.getSchoolYear().isArchived()) {
             return Response.forbidden();
         }
@@ -281,6 +313,16 @@ public final class CourseResource extends EntityResource<Course> {
         return Response.noContent();
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        SchoolYear schoolYear = pensenData.getSchoolYearById(query.getInt(QUERY_SCHOOL_YEAR, -1));
+        if (schoolYear == null) {
+            return null;
+        }
+
+        return EntityTag.create(pensenData.getVersion(schoolYear), pensenData.getReferenceVersion());
+    }
+
     @Override
     protected Course loadObject(int id) {
         return pensenData.loadCourse(id);
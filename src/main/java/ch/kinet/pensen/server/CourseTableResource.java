@@ -16,7 +16,9 @@
  */
 package ch.kinet.pensen.server;
 
+import ch.kinet.Entity;
 import ch.kinet.http.Query;
+import ch.kinet.http.Request;
 import ch.kinet.http.Response;
 import ch.kinet.pensen.data.Division;
 import ch.kinet.pensen.data.Grade;
@@ -26,18 +28,32 @@ import ch.kinet.pensen.data.SubjectCategory;
 
 public final class CourseTableResource extends GlobalResource {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public CourseTableResource() {
         pensenData = getData(PensenData.class);
     }
 
+    @Override
+    protected boolean isExpensive(Request<Authorisation> request, String resourceId) {
+        return request.getMethod() == Request.Method.Get;
+    }
+
     @Override
     protected boolean isGetAllowed(Authorisation authorisation, Query query) {
         return authorisation.isAuthenticated();
     }
 
+    @Override
+    protected String getEntityTag(Query query) {
+        SchoolYear schoolYear = pensenData.getSchoolYearById(query.getInt("schoolYear", -1));
+        if (schoolYear == null) {
+            return null;
+        }
+
+        return EntityTag.create(pensenData.getVersion(schoolYear), pensenData.getReferenceVersion());
+    }
+
     @Override
     protected Response get(Authorisation authorisation, Query query) {
         SchoolYear schoolYear = pensenData.getSchoolYearById(query.getInt("schoolYear", -1));
@@ -48,6 +64,15 @@ public final class CourseTableResource extends GlobalResource {
         Division division = pensenData.getDivisionById(query.getInt("division", -1));
         Grade grade = pensenData.getGradeById(query.getInt("grade", -1));
         SubjectCategory subjectCategory = pensenData.getSubjectCategoryById(query.getInt("subjectCategory", -1));
-        return Response.jsonVerbose(pensenData.loadCourseTable(schoolYear, division, grade, subjectCategory));
+        // identical concurrent requests share one course table, which is only cached as its representation
+        String key = "coursetable/" + schoolYear.getId() + "/" + id(division) + "/" + id(grade) + "/" +
+                     id(subjectCategory);
+        return JsonStreamResponse.cachedObjectVerbose(
+            key, getEntityTag(query), () -> pensenData.createCourseTable(schoolYear, division, grade, subjectCategory)
+        );
+    }
+
+    private static String id(Entity entity) {
+        return entity == null ? "" : String.valueOf(entity.getId());
     }
 }
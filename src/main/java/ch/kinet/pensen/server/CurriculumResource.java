@@ -21,16 +21,16 @@ import ch.kinet.Util;
 import ch.kinet.http.Query;
 import ch.kinet.http.Response;
 import ch.kinet.pensen.data.Curriculum;
+import ch.kinet.pensen.data.Grade;
 import ch.kinet.pensen.data.PensenData;
 import java.util.HashSet;
 import java.util.Set;
 
 public final class CurriculumResource extends EntityResource<Curriculum> {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public CurriculumResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -45,22 +45,22 @@ public final class CurriculumResource extends EntityResource<Curriculum> {
     }
 
     @Override
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    protected boolean isGetAllowed(Authorisation authorisation, Curriculum object, Query query) {
         return authorisation.isAuthenticated();
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
+    protected Response get(Authorisation authorisation, Curriculum object, Query query) {
         return Response.jsonVerbose(object);
     }
 
     @Override
-    protected boolean isUpdateAllowed(Authorisation authorisation, JsonObject data) {
+    protected boolean isUpdateAllowed(Authorisation authorisation, Curriculum object, JsonObject data) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response update(Authorisation authorisation, JsonObject data) {
+    protected Response update(Authorisation authorisation, Curriculum object, JsonObject data) {
         boolean archived = data.getBoolean(Curriculum.JSON_ARCHIVED, false);
         String code = data.getString(Curriculum.JSON_CODE);
         String description = data.getString(Curriculum.JSON_DESCRIPTION);
@@ -85,6 +85,16 @@ public final class CurriculumResource extends EntityResource<Curriculum> {
         return Response.noContent();
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return EntityTag.create(pensenData.getVersion(Curriculum.class), pensenData.getVersion(Grade.class));
+    }
+
+    @Override
+    protected String getEntityTag(Curriculum object, Query query) {
+        return EntityTag.create(pensenData.getVersion(Curriculum.class), pensenData.getVersion(Grade.class));
+    }
+
     @Override
     protected Curriculum loadObject(int id) {
         return pensenData.getCurriculumById(id);
@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2022 by Sebastian Forster, Stefan Rothe
+ * Copyright (C) 2022 - 2025 by Sebastian Forster, Stefan Rothe
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU Lesser General Public License as published by
@@ -17,34 +17,43 @@
 package ch.kinet.pensen.server;
 
 import ch.kinet.DataManager;
-import ch.kinet.http.FileStorage;
 import java.util.Locale;
 
 public final class DB {
 
-    private static DataManager DATA_MANAGER;
-    private static FileStorage FILE_STORAGE;
+    private static volatile DataManager DATA_MANAGER;
+    private static volatile ProductStorage PRODUCT_STORAGE;
     private static final Object lock = new Object();
 
     public static DataManager getDataManager() {
-        synchronized (lock) {
-            if (DATA_MANAGER == null) {
-                Locale.setDefault(new Locale("de", "CH"));
-                DATA_MANAGER = DataManager.create(Configuration.getInstance().getDbSpec());
+        // only lock during initialisation, the request path reads the volatile field
+        DataManager result = DATA_MANAGER;
+        if (result == null) {
+            synchronized (lock) {
+                result = DATA_MANAGER;
+                if (result == null) {
+                    Locale.setDefault(new Locale("de", "CH"));
+                    result = DataManager.create(Configuration.getInstance().getDbSpec());
+                    DATA_MANAGER = result;
+                }
             }
         }
 
-        return DATA_MANAGER;
+        return result;
     }
 
-    public static FileStorage getFileStorage() {
-        synchronized (lock) {
-            if (FILE_STORAGE == null) {
-                Locale.setDefault(new Locale("de", "CH"));
-                FILE_STORAGE = FileStorage.create();
+    public static ProductStorage getProductStorage() {
+        ProductStorage result = PRODUCT_STORAGE;
+        if (result == null) {
+            synchronized (lock) {
+                result = PRODUCT_STORAGE;
+                if (result == null) {
+                    result = ProductStorage.create(Configuration.getInstance());
+                    PRODUCT_STORAGE = result;
+                }
             }
         }
 
-        return FILE_STORAGE;
+        return result;
     }
 }
@@ -28,10 +28,9 @@ import java.util.Set;
 
 public final class DivisionResource extends EntityResource<Division> {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public DivisionResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -46,12 +45,12 @@ public final class DivisionResource extends EntityResource<Division> {
     }
 
     @Override
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    protected boolean isGetAllowed(Authorisation authorisation, Division object, Query query) {
         return authorisation.isAuthenticated();
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
+    protected Response get(Authorisation authorisation, Division object, Query query) {
         return Response.jsonVerbose(object);
     }
 
@@ -77,12 +76,12 @@ public final class DivisionResource extends EntityResource<Division> {
     }
 
     @Override
-    protected boolean isUpdateAllowed(Authorisation authorisation, JsonObject data) {
+    protected boolean isUpdateAllowed(Authorisation authorisation, Division object, JsonObject data) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response update(Authorisation authorisation, JsonObject data) {
+    protected Response update(Authorisation authorisation, Division object, JsonObject data) {
         String code = data.getString(Division.JSON_CODE);
         String description = data.getString(Division.JSON_DESCRIPTION);
         String grouping = data.getString(Division.JSON_GROUPING);
@@ -127,6 +126,16 @@ public final class DivisionResource extends EntityResource<Division> {
         return Response.noContent();
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return EntityTag.create(pensenData.getVersion(Division.class));
+    }
+
+    @Override
+    protected String getEntityTag(Division object, Query query) {
+        return EntityTag.create(pensenData.getVersion(Division.class));
+    }
+
     @Override
     protected Division loadObject(int id) {
         return pensenData.getDivisionById(id);
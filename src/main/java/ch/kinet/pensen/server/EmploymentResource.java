@@ -27,15 +27,16 @@ import ch.kinet.pensen.data.SchoolYear;
 import ch.kinet.pensen.data.Teacher;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public final class EmploymentResource extends EntityResource<Employment> {
 
+    private static final String QUERY_DIVISION = "division";
     private static final String QUERY_SCHOOL_YEAR = "schoolYear";
     private static final String QUERY_TEACHER = "teacher";
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public EmploymentResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -52,7 +53,22 @@ public final class EmploymentResource extends EntityResource<Employment> {
                 return Response.notFound();
             }
 
-            return Response.jsonArrayTerse(pensenData.loadEmployments(schoolYear, null));
+            Division division = pensenData.getDivisionById(query.getInt(QUERY_DIVISION, -1));
+            if (division == null && query.hasKey(QUERY_DIVISION)) {
+                return Response.notFound();
+            }
+
+            Teacher teacher = pensenData.getTeacherById(query.getInt(QUERY_TEACHER, -1));
+            if (teacher == null && query.hasKey(QUERY_TEACHER)) {
+                return Response.notFound();
+            }
+
+            Stream<Employment> result = pensenData.loadEmployments(schoolYear, division);
+            if (teacher != null) {
+                result = result.filter(employment -> teacher.equals(employment.getTeacher()));
+            }
+
+            return listTerse(query, result);
         }
 
         if (query.hasKey(QUERY_TEACHER)) {
@@ -61,19 +77,19 @@ public final class EmploymentResource extends EntityResource<Employment> {
                 return Response.notFound();
             }
 
-            return Response.jsonArrayTerse(pensenData.loadTeacherHistory(teacher));
+            return listTerse(query, pensenData.loadTeacherHistory(teacher));
         }
 
         return Response.badRequest();
     }
 
     @Override
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    protected boolean isGetAllowed(Authorisation authorisation, Employment object, Query query) {
         return authorisation.isAuthenticated();
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
+    protected Response get(Authorisation authorisation, Employment object, Query query) {
         return Response.jsonVerbose(object);
     }
 
@@ -124,12 +140,12 @@ public final class EmploymentResource extends EntityResource<Employment> {
     }
 
     @Override
-    protected boolean isUpdateAllowed(Authorisation authorisation, JsonObject data) {
+    protected boolean isUpdateAllowed(Authorisation authorisation, Employment object, JsonObject data) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response update(Authorisation authorisation, JsonObject data) {
+    protected Response update(Authorisation authorisation, Employment object, JsonObject data) {
         if (object.getSchoolYear().isArchived()) {
             return Response.badRequest("Anstellungen in archivierten Schuljahren können nicht verändert werden.");
         }
@@ -202,12 +218,12 @@ public final class EmploymentResource extends EntityResource<Employment> {
     }
 
     @Override
-    protected boolean isDeleteAllowed(Authorisation authorisation) {
+    protected boolean isDeleteAllowed(Authorisation authorisation, Employment object) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response delete(Authorisation authorisation) {
+    protected Response delete(Authorisation authorisation, Employment object) {
         if (object.getSchoolYear().isArchived()) {
             return Response.forbidden();
         }
@@ -17,25 +17,17 @@
 
 import ch.kinet.Entity;
 import ch.kinet.Util;
-import ch.kinet.http.Response;
 
-public abstract class EntityResource<T extends Entity> extends ObjectResource {
-
-    protected T object;
+public abstract class EntityResource<T extends Entity> extends ObjectResource<T> {
 
     @Override
-    protected final Response parseResourceId(String resourceId) {
-        int id = Util.parseInt(resourceId, -1);
-        if (id < 0) {
-            return Response.badRequest("Invalid resource identifier.");
-        }
-
-        object = loadObject(id);
-        if (object == null) {
-            return Response.notFound();
-        }
+    protected final boolean isValidResourceId(String resourceId) {
+        return Util.parseInt(resourceId, -1) >= 0;
+    }
 
-        return null;
+    @Override
+    protected final T parseResourceId(String resourceId) {
+        return loadObject(Util.parseInt(resourceId, -1));
     }
 
     /**
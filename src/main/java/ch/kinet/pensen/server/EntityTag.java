@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+/**
+ * Creates and compares HTTP entity tags. An entity tag is derived from one or more data versions. Since versions are
+ * counted from zero whenever the server is started, each tag also contains the start time of the server. The tags are
+ * weak, since the same data is sent with different content encodings and therefore different bytes.
+ */
+final class EntityTag {
+
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+    private static final String WEAK_PREFIX = "W/";
+    private static final String WILDCARD = "*";
+
+    static String create(long... versions) {
+        StringBuilder result = new StringBuilder(WEAK_PREFIX);
+        result.append('"');
+        result.append(EPOCH);
+        for (long version : versions) {
+            result.append('-');
+            result.append(Long.toString(version, 36));
+        }
+
+        result.append('"');
+        return result.toString();
+    }
+
+    /**
+     * Checks if an entity tag is contained in the value of an <code>If-None-Match</code> header. The tags are compared
+     * weakly, i.e. the weak prefix is ignored.
+     *
+     * @param ifNoneMatch the header value, may be <code>null</code>
+     * @param tag the current entity tag
+     * @return <code>true</code> if the client already has the current representation
+     */
+    static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        String opaqueTag = opaque(tag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = opaque(candidate.trim());
+            if (WILDCARD.equals(candidate) || opaqueTag.equals(candidate)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+    }
+
+    private EntityTag() {
+    }
+}
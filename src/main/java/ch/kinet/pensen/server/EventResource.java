@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.http.Query;
+import ch.kinet.http.Response;
+import ch.kinet.pensen.data.ChangeEvent;
+import ch.kinet.pensen.data.Division;
+import ch.kinet.pensen.data.PensenData;
+import ch.kinet.pensen.data.SchoolYear;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes changes of courses and workloads to clients as server-sent events. A client subscribes to the changes of a
+ * school year and optionally a division. Events are filtered when they are published, so only subscriptions
+ * interested in a change are woken up. If a client does not keep up with the events, a <code>reload</code> event is
+ * sent and the client is expected to reload its view. The number of open streams is limited by
+ * {@link EventStreamLimit}.
+ */
+public final class EventResource extends GlobalResource {
+
+    private static final String EVENT_CHANGE = "change";
+    private static final String EVENT_RELOAD = "reload";
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final String MIME_TYPE = "text/event-stream; charset=utf-8";
+    private static final String QUERY_DIVISION = "division";
+    private static final String QUERY_SCHOOL_YEAR = "schoolYear";
+    private static final int QUEUE_CAPACITY = 256;
+    private final PensenData pensenData;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public EventResource() {
+        pensenData = getData(PensenData.class);
+        pensenData.addChangeListener(this::publish);
+    }
+
+    @Override
+    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+        return authorisation.isAuthenticated();
+    }
+
+    @Override
+    protected Response get(Authorisation authorisation, Query query) {
+        SchoolYear schoolYear = pensenData.getSchoolYearById(query.getInt(QUERY_SCHOOL_YEAR, -1));
+        if (schoolYear == null) {
+            return Response.notFound();
+        }
+
+        Division division = pensenData.getDivisionById(query.getInt(QUERY_DIVISION, -1));
+        Runnable close = EventStreamLimit.open(authorisation.getAccount());
+        if (close == null) {
+            return Response.tooManyRequests();
+        }
+
+        Subscription subscription = new Subscription(schoolYear, division);
+        Response result = StreamCompletion.create(MIME_TYPE, out -> {
+            subscriptions.add(subscription);
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                send(writer, subscription);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            finally {
+                subscriptions.remove(subscription);
+            }
+        }, close);
+
+        result.setHeader("Cache-Control", "no-cache");
+        return result;
+    }
+
+    private void publish(ChangeEvent event) {
+        for (Subscription subscription : subscriptions) {
+            if (event.matches(subscription.schoolYear, subscription.division)) {
+                subscription.offer(event);
+            }
+        }
+    }
+
+    private static void send(Writer writer, Subscription subscription) throws IOException {
+        try {
+            while (true) {
+                ChangeEvent event = subscription.events.poll(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                if (subscription.overflow) {
+                    writer.write("event: " + EVENT_RELOAD + "\ndata: {}\n\n");
+                    writer.flush();
+                    return;
+                }
+
+                if (event == null) {
+                    writer.write(": heartbeat\n\n");
+                }
+                else {
+                    writer.write("event: " + EVENT_CHANGE + "\ndata: ");
+                    writer.write(event.toJsonTerse().toString());
+                    writer.write("\n\n");
+                }
+
+                if (subscription.events.isEmpty()) {
+                    writer.flush();
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Subscription {
+
+        private final Division division;
+        private final BlockingQueue<ChangeEvent> events = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private volatile boolean overflow;
+        private final SchoolYear schoolYear;
+
+        Subscription(SchoolYear schoolYear, Division division) {
+            this.division = division;
+            this.schoolYear = schoolYear;
+        }
+
+        void offer(ChangeEvent event) {
+            if (!events.offer(event)) {
+                overflow = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.pensen.data.Account;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits the number of open server-sent event streams per account and in total. The body of a streamed response is
+ * written on a request thread, so an event stream occupies that thread for as long as the client is connected. The
+ * limits keep enough threads available for the other requests.
+ */
+final class EventStreamLimit {
+
+    private static final EventStreamLimit INSTANCE = new EventStreamLimit();
+    private final Map<Account, Integer> open = new HashMap<>();
+    private int openTotal;
+
+    /**
+     * Opens an event stream of the specified account.
+     *
+     * @param account the account opening the stream
+     * @return closes the stream or <code>null</code> if a limit has been reached
+     */
+    static Runnable open(Account account) {
+        return INSTANCE.acquire(account) ? INSTANCE.new Slot(account)::close : null;
+    }
+
+    private EventStreamLimit() {
+    }
+
+    private synchronized boolean acquire(Account account) {
+        Configuration config = Configuration.getInstance();
+        if (openTotal >= config.getEventsMaxTotal() ||
+            open.getOrDefault(account, 0) >= config.getEventsMaxPerAccount()) {
+            return false;
+        }
+
+        open.merge(account, 1, Integer::sum);
+        ++openTotal;
+        return true;
+    }
+
+    private synchronized void release(Account account) {
+        open.computeIfPresent(account, (key, count) -> count > 1 ? count - 1 : null);
+        --openTotal;
+    }
+
+    private final class Slot {
+
+        private final Account account;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Slot(Account account) {
+            this.account = account;
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(account);
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.Mail;
+import ch.kinet.Mailer;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Sends exception reports to the support address from a background thread. Exceptions with the same fingerprint, i.e.
+ * the same exception type and top stack frames, are reported once together with the number of occurrences. Pending
+ * reports are sent as a digest and at most a configured number of mails is sent per interval. The number of pending
+ * fingerprints is bounded, further exceptions are only counted. Failures to send a mail are passed to the log of the
+ * server.
+ */
+final class ExceptionMailQueue {
+
+    private static final int FINGERPRINT_FRAMES = 5;
+    private static final int MAX_PENDING = 50;
+    private static final String SUBJECT = "Interner Fehler in Pensenmanager";
+    private final long intervalMillis;
+    private final Object lock = new Object();
+    private final Consumer<Throwable> log;
+    private final Supplier<Mailer> mailerFactory;
+    private final int maxMails;
+    private final Map<String, Report> pending = new LinkedHashMap<>();
+    private final String recipient;
+    private int dropped;
+    private int sentInWindow;
+    private long windowStart;
+
+    ExceptionMailQueue(Supplier<Mailer> mailerFactory, String recipient, int maxMails, long intervalMillis,
+                       Consumer<Throwable> log) {
+        this.intervalMillis = intervalMillis;
+        this.log = log;
+        this.mailerFactory = mailerFactory;
+        this.maxMails = maxMails;
+        this.recipient = recipient;
+        Thread thread = new Thread(this::run, "exception-mail");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void submit(Throwable exception) {
+        String fingerprint = fingerprint(exception);
+        synchronized (lock) {
+            Report report = pending.get(fingerprint);
+            if (report != null) {
+                report.occurred();
+            }
+            else if (pending.size() < MAX_PENDING) {
+                pending.put(fingerprint, new Report(exception));
+            }
+            else {
+                ++dropped;
+            }
+
+            lock.notifyAll();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            String body;
+            try {
+                body = awaitDigest();
+            }
+            catch (InterruptedException ex) {
+                return;
+            }
+
+            try {
+                Mail mail = Mail.create();
+                mail.addTo(recipient);
+                mail.setSubject(SUBJECT);
+                mail.setBody(body);
+                mailerFactory.get().sendMail(mail);
+            }
+            catch (RuntimeException ex) {
+                // not submitted again, a failing mail server would otherwise keep the queue busy
+                log.accept(new IllegalStateException("Cannot send exception mail to " + recipient + ".", ex));
+            }
+        }
+    }
+
+    /**
+     * Waits until reports are pending and the rate limit allows sending a mail, then returns the digest of all
+     * pending reports.
+     */
+    private String awaitDigest() throws InterruptedException {
+        synchronized (lock) {
+            while (true) {
+                long now = System.currentTimeMillis();
+                if (now - windowStart >= intervalMillis) {
+                    windowStart = now;
+                    sentInWindow = 0;
+                }
+
+                if (pending.isEmpty()) {
+                    lock.wait();
+                }
+                else if (sentInWindow >= maxMails) {
+                    lock.wait(Math.max(1, windowStart + intervalMillis - now));
+                }
+                else {
+                    ++sentInWindow;
+                    String result = digest();
+                    pending.clear();
+                    dropped = 0;
+                    return result;
+                }
+            }
+        }
+    }
+
+    private String digest() {
+        StringBuilder result = new StringBuilder();
+        if (pending.size() > 1 || dropped > 0) {
+            result.append(pending.size()).append(" verschiedene Fehler");
+            if (dropped > 0) {
+                result.append(", ").append(dropped).append(" weitere Fehler nicht aufgeführt");
+            }
+
+            result.append("\n\n");
+        }
+
+        for (Report report : pending.values()) {
+            result.append(report.count).append("x zwischen ").append(report.first).append(" und ");
+            result.append(report.last).append("\n").append(report.stackTrace).append("\n");
+        }
+
+        return result.toString();
+    }
+
+    private static String fingerprint(Throwable exception) {
+        StringBuilder result = new StringBuilder(exception.getClass().getName());
+        StackTraceElement[] frames = exception.getStackTrace();
+        for (int i = 0; i < Math.min(FINGERPRINT_FRAMES, frames.length); ++i) {
+            result.append('\n').append(frames[i]);
+        }
+
+        return result.toString();
+    }
+
+    private static final class Report {
+
+        private int count;
+        private final LocalDateTime first;
+        private LocalDateTime last;
+        private final String stackTrace;
+
+        Report(Throwable exception) {
+            StringWriter out = new StringWriter();
+            try (PrintWriter writer = new PrintWriter(out)) {
+                exception.printStackTrace(writer);
+            }
+
+            count = 1;
+            first = LocalDateTime.now();
+            last = first;
+            stackTrace = out.toString();
+        }
+
+        void occurred() {
+            ++count;
+            last = LocalDateTime.now();
+        }
+    }
+}
@@ -16,15 +16,19 @@
  */
 package ch.kinet.pensen.server;
 
-import ch.kinet.Data;
 import ch.kinet.http.Request;
 import ch.kinet.http.Response;
+import java.io.UncheckedIOException;
 
 public class FileResource extends AbstractRequestHandler {
 
-    @Override
-    public void initialize() {
-    }
+    private static final String BYTES_UNIT = "bytes";
+    private static final String HEADER_ACCEPT_RANGES = "Accept-Ranges";
+    private static final String HEADER_CONTENT_DISPOSITION = "Content-Disposition";
+    private static final String HEADER_CONTENT_RANGE = "Content-Range";
+    private static final String HEADER_RANGE = "Range";
+    private static final int STATUS_PARTIAL_CONTENT = 206;
+    private static final int STATUS_RANGE_NOT_SATISFIABLE = 416;
 
     @Override
     public Response handleRequest(Request<Authorisation> request, String resourceId) {
@@ -33,7 +37,122 @@ public class FileResource extends AbstractRequestHandler {
             return Response.forbidden();
         }
 
-        Data data = DB.getFileStorage().getFile(resourceId);
-        return data == null ? Response.notFound() : Response.file(data);
+        ProductStorage.Product product = DB.getProductStorage().get(resourceId);
+        // the product of another account is treated like a missing one, so that its existence is not revealed
+        if (product == null || !product.isAllowed(authorisation)) {
+            return Response.notFound();
+        }
+
+        return productResponse(request.getHeader(HEADER_RANGE), product);
+    }
+
+    private static String contentDisposition(String fileName) {
+        return "attachment; filename=\"" + fileName + "\"";
+    }
+
+    /**
+     * Parses a range header with a single byte range.
+     *
+     * @return the first and last position of the range, an empty array if the range cannot be satisfied or
+     * <code>null</code> if the header is not supported and the whole content is to be sent
+     */
+    private static long[] parseRange(String header, long size) {
+        if (!header.startsWith(BYTES_UNIT + "=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+
+        String spec = header.substring(BYTES_UNIT.length() + 1).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                // suffix range, i.e. the last n bytes
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix == 0) {
+                    return new long[0];
+                }
+
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            }
+            else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = size - 1;
+                if (dash < spec.length() - 1) {
+                    end = Math.min(end, Long.parseLong(spec.substring(dash + 1)));
+                }
+            }
+
+            if (start >= size || start > end) {
+                return new long[0];
+            }
+
+            return new long[] {start, end};
+        }
+        catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Sends a product. The product is opened before the response is returned, so that a product removed in the
+     * meantime is answered with <i>not found</i> instead of a broken body. A file is copied to the client in chunks
+     * and never held on the heap as a whole. A single byte range may be requested, range responses are never
+     * compressed.
+     */
+    private static Response productResponse(String rangeHeader, ProductStorage.Product product) {
+        long size = product.getSize();
+        String mimeType = product.getMimeType();
+        long[] range = rangeHeader == null ? null : parseRange(rangeHeader, size);
+        if (range != null && range.length == 0) {
+            Response result = Response.stream(mimeType, out -> {});
+            result.setStatus(STATUS_RANGE_NOT_SATISFIABLE);
+            result.setHeader(HEADER_CONTENT_RANGE, BYTES_UNIT + " */" + size);
+            return result;
+        }
+
+        ProductStorage.Reader reader;
+        try {
+            reader = product.open();
+        }
+        catch (UncheckedIOException ex) {
+            return Response.notFound();
+        }
+
+        Response result;
+        if (range == null) {
+            ResponseEncoding encoding = ResponseEncoding.current().forSize((int) Math.min(size, Integer.MAX_VALUE));
+            if (encoding.isCompressed() && isCompressible(mimeType)) {
+                result = encoding.createResponse(mimeType, out -> reader.transferTo(out, 0, size), reader::close);
+            }
+            else {
+                result = StreamCompletion.create(mimeType, out -> reader.transferTo(out, 0, size), reader::close);
+                result.setHeader(HEADER_ACCEPT_RANGES, BYTES_UNIT);
+            }
+        }
+        else {
+            long start = range[0];
+            long end = range[1];
+            result = StreamCompletion.create(
+                mimeType, out -> reader.transferTo(out, start, end - start + 1), reader::close
+            );
+            result.setStatus(STATUS_PARTIAL_CONTENT);
+            result.setHeader(HEADER_ACCEPT_RANGES, BYTES_UNIT);
+            result.setHeader(HEADER_CONTENT_RANGE, BYTES_UNIT + " " + start + "-" + end + "/" + size);
+        }
+
+        result.setHeader(HEADER_CONTENT_DISPOSITION, contentDisposition(product.getFileName()));
+        return result;
+    }
+
+    private static boolean isCompressible(String mimeType) {
+        // PDF and images are already compressed
+        return mimeType != null && (mimeType.startsWith("text/") || mimeType.contains("json") ||
+            mimeType.contains("xml"));
     }
 }
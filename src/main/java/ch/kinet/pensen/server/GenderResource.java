@@ -23,10 +23,9 @@ import ch.kinet.pensen.data.PensenData;
 
 public final class GenderResource extends EntityResource<Gender> {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public GenderResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -40,6 +39,11 @@ public final class GenderResource extends EntityResource<Gender> {
         return Response.jsonArrayTerse(pensenData.streamGenders());
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return EntityTag.create(pensenData.getVersion(Gender.class));
+    }
+
     @Override
     protected Gender loadObject(int id) {
         return pensenData.getGenderById(id);
@@ -38,9 +38,9 @@ public abstract class GlobalResource extends AbstractRequestHandler {
         Authorisation authorisation = request.getAuthorisation();
         switch (request.getMethod()) {
             case Get:
-                return handleGet(authorisation, query);
+                return handleGet(request, authorisation, query);
             case Post:
-                return handlePost(authorisation, request.getBody().toJsonTerse());
+                return handlePost(request, authorisation, request.getBody().toJsonTerse());
             default:
                 return Response.methodNotAllowed();
         }
@@ -58,6 +58,16 @@ public abstract class GlobalResource extends AbstractRequestHandler {
         return Response.badRequest();
     }
 
+    /**
+     * Returns the entity tag of the representation. The tag must be determined before the representation is created.
+     *
+     * @param query the query
+     * @return the entity tag or <code>null</code> if the representation cannot be tagged
+     */
+    protected String getEntityTag(Query query) {
+        return null;
+    }
+
     protected boolean isPostAllowed(Authorisation authorisation, JsonObject data) {
         return isAllowed(authorisation);
     }
@@ -66,19 +76,21 @@ public abstract class GlobalResource extends AbstractRequestHandler {
         return Response.badRequest();
     }
 
-    private Response handleGet(Authorisation authorisation, Query query) {
+    private Response handleGet(Request<Authorisation> request, Authorisation authorisation, Query query) {
         if (!isGetAllowed(authorisation, query)) {
             return Response.forbidden();
         }
 
-        return get(authorisation, query);
+        return conditionalGet(
+            request, getEntityTag(query), () -> admit(request, null, () -> get(authorisation, query))
+        );
     }
 
-    private Response handlePost(Authorisation authorisation, JsonObject data) {
+    private Response handlePost(Request<Authorisation> request, Authorisation authorisation, JsonObject data) {
         if (!isPostAllowed(authorisation, data)) {
             return Response.forbidden();
         }
 
-        return post(authorisation, data);
+        return admit(request, null, () -> post(authorisation, data));
     }
 }
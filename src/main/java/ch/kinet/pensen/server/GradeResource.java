@@ -23,10 +23,9 @@ import ch.kinet.pensen.data.PensenData;
 
 public final class GradeResource extends EntityResource<Grade> {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public GradeResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -40,6 +39,11 @@ public final class GradeResource extends EntityResource<Grade> {
         return Response.jsonArrayTerse(pensenData.streamGrades());
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return EntityTag.create(pensenData.getVersion(Grade.class));
+    }
+
     @Override
     protected Grade loadObject(int id) {
         return pensenData.getGradeById(id);
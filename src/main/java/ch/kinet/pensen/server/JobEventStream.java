@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.JsonObject;
+import ch.kinet.http.Response;
+import ch.kinet.pensen.data.Account;
+import ch.kinet.pensen.job.Job;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sends the state of a job as server-sent events. A <code>progress</code> event is sent whenever the progress of the
+ * job increases or a log entry is added. It contains only the new log entries. When the job has finished, a final
+ * <code>done</code> event containing the product id or error message is sent and the stream is closed. The event id
+ * is the sequence number of the last log entry, so a client can resume the stream with the <code>since</code>
+ * parameter. Job event streams count against the limits of {@link EventStreamLimit}.
+ */
+final class JobEventStream {
+
+    private static final String EVENT_DONE = "done";
+    private static final String EVENT_PROGRESS = "progress";
+    private static final long HEARTBEAT_MILLIS = 15000;
+    private static final String MIME_TYPE = "text/event-stream; charset=utf-8";
+
+    /**
+     * Creates the event stream response.
+     *
+     * @param account the account opening the stream
+     * @param job the job
+     * @param since the sequence number of the last log entry known to the client
+     * @param done called after the <code>done</code> event has been sent
+     * @return the response or a rejection if too many event streams are open
+     */
+    static Response create(Account account, Job job, int since, Runnable done) {
+        Runnable close = EventStreamLimit.open(account);
+        if (close == null) {
+            return Response.tooManyRequests();
+        }
+
+        Response result = StreamCompletion.create(MIME_TYPE, out -> {
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                send(writer, job, since, done);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, close);
+
+        result.setHeader("Cache-Control", "no-cache");
+        return result;
+    }
+
+    private static void send(Writer writer, Job job, int since, Runnable done) throws IOException {
+        int sequence = since;
+        long revision = -1;
+        try {
+            while (true) {
+                long current = job.awaitChange(revision, HEARTBEAT_MILLIS);
+                // a connected client keeps the job from being evicted
+                job.touch();
+                if (current == revision) {
+                    writer.write(": heartbeat\n\n");
+                    writer.flush();
+                    continue;
+                }
+
+                revision = current;
+                // read finished flag before the state, so that the done event contains the final state
+                boolean finished = job.isFinished();
+                JsonObject state = job.toJsonTerse(sequence);
+                sequence = state.getInt(Job.JSON_SEQUENCE, sequence);
+                writeEvent(writer, finished ? EVENT_DONE : EVENT_PROGRESS, sequence, state);
+                if (finished) {
+                    done.run();
+                    return;
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void writeEvent(Writer writer, String event, int id, JsonObject data) throws IOException {
+        writer.write("event: ");
+        writer.write(event);
+        writer.write("\nid: ");
+        writer.write(String.valueOf(id));
+        writer.write("\ndata: ");
+        writer.write(data.toString());
+        writer.write("\n\n");
+        writer.flush();
+    }
+
+    private JobEventStream() {
+    }
+}
@@ -22,14 +22,15 @@ import ch.kinet.http.Query;
 import ch.kinet.http.Response;
 import ch.kinet.pensen.job.Job;
 import ch.kinet.pensen.job.JobData;
+import ch.kinet.pensen.job.JobImplementation;
 
-public final class JobResource extends ObjectResource {
+public final class JobResource extends ObjectResource<Job> {
 
-    private JobData jobData;
-    private Job job;
+    private static final String QUERY_EVENTS = "events";
+    private static final String QUERY_SINCE = "since";
+    private final JobData jobData;
 
-    @Override
-    public void initialize() {
+    public JobResource() {
         jobData = getData(JobData.class);
     }
 
@@ -44,17 +45,27 @@ public final class JobResource extends ObjectResource {
     }
 
     @Override
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    protected boolean isGetAllowed(Authorisation authorisation, Job job, Query query) {
         return job.isAllowed(authorisation);
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
+    protected Response get(Authorisation authorisation, Job job, Query query) {
+        int since = query.getInt(QUERY_SINCE, -1);
+        job.touch();
+        if (query.hasKey(QUERY_EVENTS)) {
+            return JobEventStream.create(authorisation.getAccount(), job, since, () -> {
+                if (!job.isGlobal()) {
+                    jobData.deleteJob(job);
+                }
+            });
+        }
+
         if (job.isFinished() && !job.isGlobal()) {
             jobData.deleteJob(job);
         }
 
-        return Response.jsonVerbose(job);
+        return Response.json(job.toJsonTerse(since));
     }
 
     @Override
@@ -64,11 +75,16 @@ public final class JobResource extends ObjectResource {
 
     @Override
     protected Response create(Authorisation authorisation, JsonObject data) {
-        job = jobData.createJob(authorisation, data.getString(Job.JSON_NAME));
-        if (job == null) {
+        JobImplementation implementation = jobData.createImplementation(authorisation, data.getString(Job.JSON_NAME));
+        if (implementation == null) {
             return Response.badRequest("Invalid job name.");
         }
 
+        Job job = jobData.createJob(authorisation, implementation);
+        if (job == null) {
+            return Response.tooManyRequests();
+        }
+
         if (!job.isFinished()) {
             return Response.badRequest("Job is already running.");
         }
@@ -77,17 +93,18 @@ public final class JobResource extends ObjectResource {
             return Response.jsonVerbose(job);
         }
         else {
+            jobData.deleteJob(job);
             return Response.badRequest("Invalid parameters.");
         }
     }
 
     @Override
-    protected boolean isUpdateAllowed(Authorisation authorisation, JsonObject data) {
+    protected boolean isUpdateAllowed(Authorisation authorisation, Job job, JsonObject data) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response update(Authorisation authorisation, JsonObject data) {
+    protected Response update(Authorisation authorisation, Job job, JsonObject data) {
         if (job.start(authorisation.getAccount(), data)) {
             return Response.noContent();
         }
@@ -97,12 +114,25 @@ public final class JobResource extends ObjectResource {
     }
 
     @Override
-    protected Response parseResourceId(String resourceId) {
-        job = jobData.getJobById(Util.parseInt(resourceId, -1));
-        if (job == null) {
-            return Response.notFound();
+    protected boolean isDeleteAllowed(Authorisation authorisation, Job job) {
+        return job.isAllowed(authorisation) && (!job.isGlobal() || authorisation.isEditAllowed());
+    }
+
+    @Override
+    protected Response delete(Authorisation authorisation, Job job) {
+        // a running job is cancelled, the job itself is removed when its final state has been fetched
+        if (!job.isFinished()) {
+            job.cancel();
         }
+        else if (!job.isGlobal()) {
+            jobData.deleteJob(job);
+        }
+
+        return Response.noContent();
+    }
 
-        return null;
+    @Override
+    protected Job parseResourceId(String resourceId) {
+        return jobData.getJobById(Util.parseInt(resourceId, -1));
     }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.Entity;
+import ch.kinet.Json;
+import ch.kinet.JsonObject;
+import ch.kinet.http.Response;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Creates JSON responses which are written directly to the client and compressed if the client accepts it. Arrays
+ * are written element by element. In contrast to {@link Response#jsonArrayTerse}, no JSON tree of the whole array is
+ * built in memory. At most one element and the output buffer are held at any time.
+ */
+final class JsonStreamResponse {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final String JSON_ITEMS = "items";
+    private static final String JSON_NEXT = "next";
+    private static final String MIME_TYPE = "application/json; charset=utf-8";
+
+    static Response arrayTerse(Stream<? extends Json> items) {
+        return array(items.map(Json::toJsonTerse));
+    }
+
+    static Response array(Stream<JsonObject> items) {
+        return ResponseEncoding.current().createResponse(MIME_TYPE, out -> write(out, items, -1));
+    }
+
+    /**
+     * Creates a response containing an array whose content is shared with concurrent and recent requests with the
+     * same key and data version, see {@link ResponseCache}.
+     */
+    static Response cachedArray(String key, String version, Supplier<Stream<JsonObject>> items) {
+        byte[] content = ResponseCache.getInstance().get(key, version, () -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            write(out, items.get(), -1);
+            return out.toByteArray();
+        });
+        return ResponseEncoding.current().createResponse(MIME_TYPE, content);
+    }
+
+    /**
+     * Creates a response containing the verbose representation of an object which is shared with concurrent and
+     * recent requests with the same key and data version, see {@link ResponseCache}.
+     */
+    static Response cachedObjectVerbose(String key, String version, Supplier<? extends Json> item) {
+        byte[] content = ResponseCache.getInstance().get(
+            key, version, () -> item.get().toJsonVerbose().toString().getBytes(StandardCharsets.UTF_8)
+        );
+        return ResponseEncoding.current().createResponse(MIME_TYPE, content);
+    }
+
+    static Response objectVerbose(Json item) {
+        return ResponseEncoding.current().createResponse(
+            MIME_TYPE, item.toJsonVerbose().toString().getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * Creates a response containing a page of a list. The response is an object containing an array with at most
+     * <code>limit</code> items and the cursor of the next page. The cursor is the ID of the last item on the page or
+     * <code>null</code> if the stream has no more items.
+     *
+     * @param items the items, starting with the first item of the page
+     * @param limit the maximum number of items on the page
+     * @return the response
+     */
+    static Response page(Stream<JsonObject> items, int limit) {
+        return ResponseEncoding.current().createResponse(MIME_TYPE, out -> write(out, items, limit));
+    }
+
+    private static void write(OutputStream out, Stream<JsonObject> items, int limit) {
+        boolean paged = limit >= 0;
+        try (items) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            if (paged) {
+                writer.write("{\"" + JSON_ITEMS + "\":");
+            }
+
+            writer.write('[');
+            Iterator<JsonObject> i = items.iterator();
+            int count = 0;
+            JsonObject last = null;
+            while (i.hasNext() && (!paged || count < limit)) {
+                if (count > 0) {
+                    writer.write(',');
+                }
+
+                last = i.next();
+                writer.write(last.toString());
+                ++count;
+            }
+
+            writer.write(']');
+            if (paged) {
+                writer.write(",\"" + JSON_NEXT + "\":");
+                writer.write(i.hasNext() ? "\"" + last.getInt(Entity.JSON_ID) + "\"" : "null");
+                writer.write('}');
+            }
+
+            writer.flush();
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private JsonStreamResponse() {
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records durations in buckets with exponentially growing upper bounds. Recording a value is lock-free and does not
+ * allocate memory. The bounds are identical for all histograms, so they can be aggregated by Prometheus.
+ */
+final class LatencyHistogram {
+
+    // upper bounds in seconds, roughly two buckets per octave
+    private static final double[] BOUNDS = {
+        0.0005, 0.001, 0.002, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300, 1800
+    };
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS.length];
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+    private final LongAdder sumNanos = new LongAdder();
+
+    static {
+        for (int i = 0; i < BOUNDS.length; ++i) {
+            BOUNDS_NANOS[i] = (long) (BOUNDS[i] * 1e9);
+        }
+    }
+
+    void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {
+            ++bucket;
+        }
+
+        counts.incrementAndGet(bucket);
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Writes the histogram in Prometheus text format.
+     *
+     * @param out the writer
+     * @param name the metric name without suffix
+     * @param labels the labels of the series without braces, may be empty
+     */
+    void write(PrintWriter out, String name, String labels) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS.length; ++i) {
+            cumulative += counts.get(i);
+            out.print(name + "_bucket{" + prefix + "le=\"" + BOUNDS[i] + "\"} " + cumulative + "\n");
+        }
+
+        cumulative += counts.get(BOUNDS.length);
+        out.print(name + "_bucket{" + prefix + "le=\"+Inf\"} " + cumulative + "\n");
+        String series = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.print(name + "_sum" + series + " " + sumNanos.sum() / 1e9 + "\n");
+        out.print(name + "_count" + series + " " + cumulative + "\n");
+    }
+}
@@ -32,20 +32,16 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Stream;
 
-public class LessonTableResource extends ObjectResource {
+public class LessonTableResource extends ObjectResource<LessonTableResource.Target> {
 
     private static final String JSON_ID = "id";
     private static final String JSON_CURRICULUM = "curriculum";
     private static final String JSON_DETAILS = "details";
     private static final String JSON_DIVISION = "division";
     private static final String JSON_SUBJECT = "subject";
-    private PensenData pensenData;
-    private Curriculum curriculum;
-    private Division division = null;
-    private Subject subject;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public LessonTableResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -56,61 +52,71 @@ public class LessonTableResource extends ObjectResource {
 
     @Override
     protected Response list(Authorisation authorisation, Query query) {
-        curriculum = pensenData.getCurriculumById(query.getInt("curriculum", -1));
+        Curriculum curriculum = pensenData.getCurriculumById(query.getInt("curriculum", -1));
         if (curriculum == null) {
             return Response.badRequest("Bitte einen Lehrgang auswählen.");
         }
 
-        division = pensenData.getDivisionById(query.getInt("division", -1));
-        subject = pensenData.getSubjectById(query.getInt("subject", -1));
+        Division division = pensenData.getDivisionById(query.getInt("division", -1));
+        Subject subject = pensenData.getSubjectById(query.getInt("subject", -1));
         return Response.jsonTerse(subject == null ?
             pensenData.loadLessonTable(curriculum, division) :
-            loadObject()
+            loadObject(new Target(curriculum, division, subject))
         );
     }
 
     @Override
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    protected boolean isGetAllowed(Authorisation authorisation, Target target, Query query) {
         return authorisation.isAuthenticated();
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
-        return Response.json(loadObject());
+    protected Response get(Authorisation authorisation, Target target, Query query) {
+        return Response.json(loadObject(target));
     }
 
     @Override
-    protected boolean isUpdateAllowed(Authorisation authorisation, JsonObject data) {
+    protected boolean isUpdateAllowed(Authorisation authorisation, Target target, JsonObject data) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response update(Authorisation authorisation, JsonObject data) {
-        pensenData.saveLessonTableEntries(curriculum, division, subject, parseEntries(data));
+    protected Response update(Authorisation authorisation, Target target, JsonObject data) {
+        pensenData.saveLessonTableEntries(target.curriculum, target.division, target.subject, parseEntries(data));
         return Response.noContent();
     }
 
     @Override
-    protected Response parseResourceId(String resourceId) {
-        String[] parts = resourceId.split("-");
-        if (parts.length < 2 || parts.length > 3) {
-            return Response.badRequest();
+    protected boolean isValidResourceId(String resourceId) {
+        if (resourceId == null) {
+            return false;
         }
 
-        curriculum = pensenData.getCurriculumById(Util.parseInt(parts[0], -1));
-        subject = pensenData.getSubjectById(Util.parseInt(parts[1], -1));
+        int length = resourceId.split("-").length;
+        return length >= 2 && length <= 3;
+    }
+
+    @Override
+    protected Target parseResourceId(String resourceId) {
+        String[] parts = resourceId.split("-");
+        Curriculum curriculum = pensenData.getCurriculumById(Util.parseInt(parts[0], -1));
+        Subject subject = pensenData.getSubjectById(Util.parseInt(parts[1], -1));
         if (curriculum == null || subject == null) {
-            return Response.notFound();
+            return null;
         }
 
+        Division division = null;
         if (parts.length == 3) {
             division = pensenData.getDivisionById(Util.parseInt(parts[2], -1));
         }
 
-        return null;
+        return new Target(curriculum, division, subject);
     }
 
-    private JsonObject loadObject() {
+    private JsonObject loadObject(Target target) {
+        Curriculum curriculum = target.curriculum;
+        Division division = target.division;
+        Subject subject = target.subject;
         JsonObject result = JsonObject.create();
         result.put(JSON_ID, resourceId(curriculum, subject, division));
         result.putTerse(JSON_CURRICULUM, curriculum);
@@ -162,4 +168,17 @@ public class LessonTableResource extends ObjectResource {
 
         return result.values().stream();
     }
+
+    static final class Target {
+
+        private final Curriculum curriculum;
+        private final Division division;
+        private final Subject subject;
+
+        Target(Curriculum curriculum, Division division, Subject subject) {
+            this.curriculum = curriculum;
+            this.division = division;
+            this.subject = subject;
+        }
+    }
 }
@@ -23,10 +23,9 @@ import ch.kinet.pensen.data.PensenData;
 
 public final class LessonTypeResource extends EntityResource<LessonType> {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public LessonTypeResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -40,6 +39,11 @@ public final class LessonTypeResource extends EntityResource<LessonType> {
         return Response.jsonArrayTerse(pensenData.streamLessonTypes());
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return EntityTag.create(pensenData.getVersion(LessonType.class));
+    }
+
     @Override
     protected LessonType loadObject(int id) {
         return pensenData.getLessonTypeById(id);
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.Entity;
+import ch.kinet.JsonObject;
+import ch.kinet.Util;
+import ch.kinet.http.Query;
+import ch.kinet.http.Response;
+import ch.kinet.pensen.data.JsonProjection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Represents the common parameters of list requests:
+ * <ul>
+ * <li><code>limit</code>: maximum number of items returned. If present, the response is a page object containing the
+ * items and the cursor of the next page.</li>
+ * <li><code>cursor</code>: cursor returned with the previous page. The cursor is the ID of the last item of the
+ * previous page, so pages stay consistent if items are added or removed in between.</li>
+ * <li><code>fields</code>: comma separated list of the JSON properties to return. The <code>id</code> property is
+ * always returned.</li>
+ * </ul>
+ * Paged lists are ordered by ID, unpaged lists keep the order of the resource. Resource specific filters are applied
+ * by the resources before the items are passed to the list query.
+ */
+final class ListQuery {
+
+    private static final String JSON_ID = "id";
+    private static final int MAX_LIMIT = 1000;
+    private static final String QUERY_CURSOR = "cursor";
+    private static final String QUERY_FIELDS = "fields";
+    private static final String QUERY_LIMIT = "limit";
+    private final int afterId;
+    private final Set<String> fields;
+    private final int limit;
+
+    /**
+     * Parses the list parameters of a query.
+     *
+     * @param query the query
+     * @return the list query or <code>null</code> if a parameter is invalid
+     */
+    static ListQuery parse(Query query) {
+        int limit = -1;
+        if (query.hasKey(QUERY_LIMIT)) {
+            limit = query.getInt(QUERY_LIMIT, -1);
+            if (limit < 1 || limit > MAX_LIMIT) {
+                return null;
+            }
+        }
+
+        int afterId = -1;
+        String cursor = query.getString(QUERY_CURSOR);
+        if (!Util.isEmpty(cursor)) {
+            afterId = Util.parseInt(cursor, -1);
+            if (afterId < 0) {
+                return null;
+            }
+        }
+
+        Set<String> fields = new HashSet<>();
+        String fieldList = query.getString(QUERY_FIELDS);
+        if (!Util.isEmpty(fieldList)) {
+            for (String field : fieldList.split(",")) {
+                fields.add(field.trim());
+            }
+
+            fields.add(JSON_ID);
+        }
+
+        return new ListQuery(afterId, fields, limit);
+    }
+
+    private ListQuery(int afterId, Set<String> fields, int limit) {
+        this.afterId = afterId;
+        this.fields = fields;
+        this.limit = limit;
+    }
+
+    /**
+     * Creates the list response. Items up to the cursor are skipped without being serialised.
+     *
+     * @param items the filtered items of the list
+     * @param verbose <code>true</code> if the items are serialised verbosely
+     * @return the response
+     */
+    Response createResponse(Stream<? extends Entity> items, boolean verbose) {
+        if (limit < 0 && afterId < 0) {
+            return JsonStreamResponse.array(items.map(item -> toJson(item, verbose)));
+        }
+
+        Stream<JsonObject> objects = items
+            .sorted(Comparator.comparingInt(Entity::getId))
+            .filter(item -> item.getId() > afterId)
+            .map(item -> toJson(item, verbose));
+        if (limit < 0) {
+            return JsonStreamResponse.array(objects);
+        }
+
+        return JsonStreamResponse.page(objects, limit);
+    }
+
+    /**
+     * Serialises an item. If only selected fields are requested, an item implementing {@link JsonProjection} builds
+     * only these properties. The representation of other items is built completely and reduced afterwards.
+     */
+    private JsonObject toJson(Entity item, boolean verbose) {
+        if (fields.isEmpty()) {
+            return verbose ? item.toJsonVerbose() : item.toJsonTerse();
+        }
+
+        if (item instanceof JsonProjection) {
+            return ((JsonProjection) item).toJson(fields::contains, verbose);
+        }
+
+        return project(verbose ? item.toJsonVerbose() : item.toJsonTerse());
+    }
+
+    private JsonObject project(JsonObject object) {
+        for (String key : new ArrayList<>(object.keys())) {
+            if (!fields.contains(key)) {
+                object.remove(key);
+            }
+        }
+
+        return object;
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.http.Response;
+import ch.kinet.pensen.job.JobData;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Collects request, job and JVM metrics of the server and renders them in the Prometheus text exposition format.
+ */
+public final class Metrics {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final ThreadLocal<RequestTimer> CURRENT_REQUEST = new ThreadLocal<>();
+    private static final Map<String, JobStatistics> JOBS = new ConcurrentHashMap<>();
+    private static final Map<String, RequestStatistics> REQUESTS = new ConcurrentHashMap<>();
+
+    /**
+     * Records the execution of a job.
+     *
+     * @param name the name of the job
+     * @param nanos the duration of the job in nanoseconds
+     * @param succeeded <code>true</code> if the job has succeeded
+     */
+    public static void recordJob(String name, long nanos, boolean succeeded) {
+        JobStatistics statistics = JOBS.computeIfAbsent(name, key -> new JobStatistics());
+        (succeeded ? statistics.succeeded : statistics.failed).increment();
+        statistics.durations.record(nanos);
+    }
+
+    static String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    /**
+     * Starts measuring the request handled by the current thread.
+     *
+     * @param resource the name of the resource
+     * @param method the request method
+     */
+    static void beginRequest(String resource, String method) {
+        CURRENT_REQUEST.set(new RequestTimer(resource, method, System.nanoTime()));
+    }
+
+    /**
+     * Detaches the measurement of the current request from the thread. Streamed responses call this when they are
+     * created and stop the measurement once the body has been written, so that their duration includes the time
+     * needed to produce the body. For event streams this is the lifetime of the connection.
+     *
+     * @return records the request with the status of the specified response or <code>null</code> if the current
+     * thread does not measure a request
+     */
+    static Consumer<Response> detachRequest() {
+        RequestTimer result = CURRENT_REQUEST.get();
+        CURRENT_REQUEST.remove();
+        return result == null ? null : result::record;
+    }
+
+    /**
+     * Records the request handled by the current thread unless its measurement has been detached by a streamed
+     * response.
+     *
+     * @param response the response returned by the request handler
+     */
+    static void endRequest(Response response) {
+        Consumer<Response> record = detachRequest();
+        if (record != null) {
+            record.accept(response);
+        }
+    }
+
+    static String render() {
+        StringWriter result = new StringWriter();
+        PrintWriter out = new PrintWriter(result);
+        writeRequests(out);
+        writeCompression(out);
+        writeJobs(out);
+        writeJvm(out);
+        out.flush();
+        return result.toString();
+    }
+
+    private static void writeRequests(PrintWriter out) {
+        Map<String, RequestStatistics> requests = new TreeMap<>(REQUESTS);
+        header(out, "pensen_http_requests_total", "counter", "Number of handled requests by status class.");
+        for (RequestStatistics statistics : requests.values()) {
+            for (int i = 1; i < statistics.statusClasses.length; ++i) {
+                long count = statistics.statusClasses[i].sum();
+                if (count > 0) {
+                    sample(out, "pensen_http_requests_total", statistics.labels() + ",status=\"" + i + "xx\"", count);
+                }
+            }
+        }
+
+        header(out, "pensen_http_request_errors_total", "counter", "Number of requests answered with a server error.");
+        for (RequestStatistics statistics : requests.values()) {
+            sample(out, "pensen_http_request_errors_total", statistics.labels(), statistics.statusClasses[5].sum());
+        }
+
+        header(out, "pensen_http_request_duration_seconds", "histogram", "Time until the body is written.");
+        for (RequestStatistics statistics : requests.values()) {
+            statistics.durations.write(out, "pensen_http_request_duration_seconds", statistics.labels());
+        }
+    }
+
+    private static void writeCompression(PrintWriter out) {
+        Map<String, ResponseEncoding.Statistics> statistics = new TreeMap<>(ResponseEncoding.getStatistics());
+        header(out, "pensen_http_response_raw_bytes_total", "counter", "Size of response bodies before compression.");
+        statistics.forEach((resource, item) -> {
+            sample(out, "pensen_http_response_raw_bytes_total", resourceLabel(resource), item.getRawBytes());
+        });
+        header(out, "pensen_http_response_sent_bytes_total", "counter", "Size of response bodies after compression.");
+        statistics.forEach((resource, item) -> {
+            sample(out, "pensen_http_response_sent_bytes_total", resourceLabel(resource), item.getSentBytes());
+        });
+        header(out, "pensen_http_response_compression_ratio", "gauge", "Ratio of sent bytes to raw bytes.");
+        statistics.forEach((resource, item) -> {
+            sample(out, "pensen_http_response_compression_ratio", resourceLabel(resource), item.getRatio());
+        });
+    }
+
+    private static void writeJobs(PrintWriter out) {
+        Map<String, JobStatistics> jobs = new TreeMap<>(JOBS);
+        header(out, "pensen_jobs_total", "counter", "Number of finished jobs by outcome.");
+        jobs.forEach((name, item) -> {
+            sample(out, "pensen_jobs_total", jobLabel(name) + ",outcome=\"succeeded\"", item.succeeded.sum());
+            sample(out, "pensen_jobs_total", jobLabel(name) + ",outcome=\"failed\"", item.failed.sum());
+        });
+        header(out, "pensen_job_duration_seconds", "histogram", "Duration of jobs.");
+        jobs.forEach((name, item) -> item.durations.write(out, "pensen_job_duration_seconds", jobLabel(name)));
+        JobData jobData = DB.getDataManager().getData(JobData.class);
+        header(out, "pensen_jobs_retained", "gauge", "Number of jobs held by the server.");
+        sample(out, "pensen_jobs_retained", "", jobData.getJobs().count());
+        header(out, "pensen_jobs_retained_bytes", "gauge", "Estimated heap memory retained by jobs.");
+        sample(out, "pensen_jobs_retained_bytes", "", jobData.getRetainedBytes());
+    }
+
+    private static void writeJvm(PrintWriter out) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        header(out, "jvm_memory_heap_used_bytes", "gauge", "Used heap memory.");
+        sample(out, "jvm_memory_heap_used_bytes", "", heap.getUsed());
+        header(out, "jvm_memory_heap_committed_bytes", "gauge", "Committed heap memory.");
+        sample(out, "jvm_memory_heap_committed_bytes", "", heap.getCommitted());
+        header(out, "jvm_memory_heap_max_bytes", "gauge", "Maximum heap memory.");
+        sample(out, "jvm_memory_heap_max_bytes", "", heap.getMax());
+        header(out, "jvm_gc_collections_total", "counter", "Number of garbage collections.");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(out, "jvm_gc_collections_total", "gc=\"" + escape(gc.getName()) + "\"", gc.getCollectionCount());
+        }
+
+        header(out, "jvm_gc_collection_seconds_total", "counter", "Time spent in garbage collections.");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(out, "jvm_gc_collection_seconds_total", "gc=\"" + escape(gc.getName()) + "\"",
+                   gc.getCollectionTime() / 1000.0);
+        }
+
+        header(out, "jvm_threads_live", "gauge", "Number of live threads.");
+        sample(out, "jvm_threads_live", "", ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+
+    private static void header(PrintWriter out, String name, String type, String help) {
+        out.print("# HELP " + name + " " + help + "\n");
+        out.print("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void sample(PrintWriter out, String name, String labels, Number value) {
+        out.print(name);
+        if (!labels.isEmpty()) {
+            out.print("{" + labels + "}");
+        }
+
+        out.print(" " + value + "\n");
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String jobLabel(String name) {
+        return "job=\"" + escape(name) + "\"";
+    }
+
+    private static String resourceLabel(String resource) {
+        return "resource=\"" + escape(resource) + "\"";
+    }
+
+    private Metrics() {
+    }
+
+    private static final class JobStatistics {
+
+        private final LatencyHistogram durations = new LatencyHistogram();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder succeeded = new LongAdder();
+    }
+
+    private static final class RequestTimer {
+
+        private final String method;
+        private final String resource;
+        private final long start;
+
+        RequestTimer(String resource, String method, long start) {
+            this.method = method;
+            this.resource = resource;
+            this.start = start;
+        }
+
+        void record(Response response) {
+            String key = resource + "\u0000" + method;
+            RequestStatistics statistics = REQUESTS.computeIfAbsent(key, k -> new RequestStatistics(resource, method));
+            int status = response.getStatus();
+            statistics.statusClasses[Math.max(0, Math.min(5, status / 100))].increment();
+            statistics.durations.record(System.nanoTime() - start);
+        }
+    }
+
+    private static final class RequestStatistics {
+
+        private final LatencyHistogram durations = new LatencyHistogram();
+        private final String method;
+        private final String resource;
+        private final LongAdder[] statusClasses = new LongAdder[6];
+
+        RequestStatistics(String resource, String method) {
+            this.method = method;
+            this.resource = resource;
+            for (int i = 0; i < statusClasses.length; ++i) {
+                statusClasses[i] = new LongAdder();
+            }
+        }
+
+        String labels() {
+            return resourceLabel(resource) + ",method=\"" + method + "\"";
+        }
+    }
+}
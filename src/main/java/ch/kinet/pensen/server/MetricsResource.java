@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.http.Query;
+import ch.kinet.http.Response;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exposes the server metrics in the Prometheus text format. Only accounts allowed to grant permissions may read the
+ * metrics.
+ */
+public final class MetricsResource extends GlobalResource {
+
+    @Override
+    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+        return authorisation.isGrantAllowed();
+    }
+
+    @Override
+    protected Response get(Authorisation authorisation, Query query) {
+        byte[] content = Metrics.render().getBytes(StandardCharsets.UTF_8);
+        return ResponseEncoding.current().createResponse(Metrics.getContentType(), content);
+    }
+}
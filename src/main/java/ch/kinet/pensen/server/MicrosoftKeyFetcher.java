@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.JsonArray;
+import ch.kinet.JsonObject;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fetches the token signing keys of a Microsoft Entra tenant from its JSON web key set.
+ */
+final class MicrosoftKeyFetcher implements SigningKeyFetcher {
+
+    private static final String JSON_EXPONENT = "e";
+    private static final String JSON_KEY_ID = "kid";
+    private static final String JSON_KEY_TYPE = "kty";
+    private static final String JSON_KEYS = "keys";
+    private static final String JSON_MODULUS = "n";
+    private static final String KEY_TYPE_RSA = "RSA";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private final HttpClient client;
+    private final URI uri;
+
+    MicrosoftKeyFetcher(String tenant) {
+        client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+        uri = URI.create("https://login.microsoftonline.com/" + tenant + "/discovery/v2.0/keys");
+    }
+
+    @Override
+    public Map<String, PublicKey> fetchKeys() throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(TIMEOUT).GET().build();
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
+
+        if (response.statusCode() != 200) {
+            throw new IOException("Fetching signing keys failed with status " + response.statusCode() + ".");
+        }
+
+        return parseKeys(response.body());
+    }
+
+    private static Map<String, PublicKey> parseKeys(String keySet) throws IOException {
+        JsonArray keys;
+        try {
+            keys = JsonObject.create(keySet).getArray(JSON_KEYS);
+        }
+        catch (RuntimeException ex) {
+            throw new IOException("Invalid signing key set.", ex);
+        }
+
+        if (keys == null) {
+            throw new IOException("Invalid signing key set.");
+        }
+
+        Map<String, PublicKey> result = new HashMap<>();
+        for (int i = 0; i < keys.length(); ++i) {
+            JsonObject key = keys.getObject(i);
+            if (key != null && KEY_TYPE_RSA.equals(key.getString(JSON_KEY_TYPE)) && key.hasKey(JSON_KEY_ID)) {
+                result.put(
+                    key.getString(JSON_KEY_ID), createKey(key.getString(JSON_MODULUS), key.getString(JSON_EXPONENT))
+                );
+            }
+        }
+
+        return result;
+    }
+
+    private static PublicKey createKey(String modulus, String exponent) throws IOException {
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            RSAPublicKeySpec spec = new RSAPublicKeySpec(
+                new BigInteger(1, decoder.decode(modulus)), new BigInteger(1, decoder.decode(exponent))
+            );
+            return KeyFactory.getInstance("RSA").generatePublic(spec);
+        }
+        catch (GeneralSecurityException | IllegalArgumentException | NullPointerException ex) {
+            throw new IOException("Invalid signing key.", ex);
+        }
+    }
+}
@@ -26,10 +26,9 @@ import ch.kinet.pensen.data.Teacher;
 public final class NoteResource extends EntityResource<Note> {
 
     private static final String QUERY_TEACHER = "teacher";
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public NoteResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -49,12 +48,12 @@ public final class NoteResource extends EntityResource<Note> {
     }
 
     @Override
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    protected boolean isGetAllowed(Authorisation authorisation, Note object, Query query) {
         return authorisation.isAuthenticated();
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
+    protected Response get(Authorisation authorisation, Note object, Query query) {
         return Response.jsonVerbose(object);
     }
 
@@ -76,12 +75,12 @@ public final class NoteResource extends EntityResource<Note> {
     }
 
     @Override
-    protected boolean isDeleteAllowed(Authorisation authorisation) {
+    protected boolean isDeleteAllowed(Authorisation authorisation, Note object) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response delete(Authorisation authorisation) {
+    protected Response delete(Authorisation authorisation, Note object) {
         pensenData.deleteNote(object);
         return Response.noContent();
     }
@@ -16,48 +16,117 @@
  */
 package ch.kinet.pensen.server;
 
+import ch.kinet.Entity;
+import ch.kinet.Json;
 import ch.kinet.JsonObject;
 import ch.kinet.Util;
 import ch.kinet.http.Query;
 import ch.kinet.http.Request;
 import ch.kinet.http.Response;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 /**
  * Base class for object resources. An object resource usually represents an entity, i.e. a collection of objects
- * identified by an id.
+ * identified by an id. The object addressed by a request is passed to the handler methods explicitly, since the
+ * resource instance is shared by all requests.
+ *
+ * @param <T> the type of object identified by a resource ID
  */
-public abstract class ObjectResource extends AbstractRequestHandler {
+public abstract class ObjectResource<T> extends AbstractRequestHandler {
+
+    private static final ThreadLocal<AtomicReference<JsonObject>> CREATED = new ThreadLocal<>();
 
     @Override
     public final Response handleRequest(Request<Authorisation> request, String resourceId) {
-        Query query = request.getQuery();
         Authorisation authorisation = request.getAuthorisation();
         switch (request.getMethod()) {
-            case Post:
-                return handleCreate(authorisation, request.getBody().toJsonTerse());
+            case Delete:
+                return handleMutation(authorisation, request.getMethod(), resourceId, null);
             case Get:
-                if (Util.isEmpty(resourceId)) {
-                    return handleList(authorisation, query);
-                }
+                return handleRead(request, authorisation, resourceId);
+            case Post:
+            case Put:
+                return handleMutation(authorisation, request.getMethod(), resourceId, request.getBody().toJsonTerse());
+            default:
+                return Response.methodNotAllowed();
         }
+    }
 
-        Response response = parseResourceId(resourceId);
-        if (response != null) {
-            return response;
+    /**
+     * Handles a request creating, updating or deleting an object. Besides HTTP requests, this method handles the
+     * operations of a batch.
+     *
+     * @param authorisation the authorisation of the client
+     * @param method the request method, one of <code>Post</code>, <code>Put</code> or <code>Delete</code>
+     * @param resourceId the resource ID or <code>null</code> for <code>Post</code>
+     * @param data the request body or <code>null</code> for <code>Delete</code>
+     * @return the response
+     */
+    final Response handleMutation(Authorisation authorisation, Request.Method method, String resourceId,
+                                  JsonObject data) {
+        if (method == Request.Method.Post) {
+            return handleCreate(authorisation, data);
         }
 
-        switch (request.getMethod()) {
+        if (!isValidResourceId(resourceId)) {
+            return Response.badRequest("Invalid resource identifier.");
+        }
+
+        T object = parseResourceId(resourceId);
+        if (object == null) {
+            return Response.notFound();
+        }
+
+        switch (method) {
             case Delete:
-                return handleDelete(authorisation);
-            case Get:
-                return handleGet(authorisation, query);
+                return handleDelete(authorisation, object);
             case Put:
-                return handleUpdate(authorisation, request.getBody().toJsonTerse());
+                return handleUpdate(authorisation, object, data);
             default:
                 return Response.methodNotAllowed();
         }
     }
 
+    /**
+     * Executes an operation of a batch like {@link #handleMutation}. If the operation creates an object with
+     * {@link #created(Json)}, the body of the response is returned as well.
+     *
+     * @param authorisation the authorisation of the client
+     * @param method the request method, one of <code>Post</code>, <code>Put</code> or <code>Delete</code>
+     * @param resourceId the resource ID or <code>null</code> for <code>Post</code>
+     * @param data the request body
+     * @param result receives the body of the response, if there is one
+     * @return the status of the response
+     */
+    final int executeMutation(Authorisation authorisation, Request.Method method, String resourceId, JsonObject data,
+                              AtomicReference<JsonObject> result) {
+        CREATED.set(result);
+        try {
+            return handleMutation(authorisation, method, resourceId, data).getStatus();
+        }
+        finally {
+            CREATED.remove();
+        }
+    }
+
+    /**
+     * Creates the response to a request that has created an object. The response contains the verbose representation
+     * of the object, which is also returned to batches.
+     *
+     * @param object the created object
+     * @return the response
+     */
+    protected static Response created(Json object) {
+        JsonObject body = object.toJsonVerbose();
+        AtomicReference<JsonObject> result = CREATED.get();
+        if (result != null) {
+            result.set(body);
+        }
+
+        return Response.createdJsonVerbose(body);
+    }
+
     protected boolean isAllowed(Authorisation authorisation) {
         return false;
     }
@@ -70,14 +139,60 @@ public abstract class ObjectResource extends AbstractRequestHandler {
         return Response.methodNotAllowed();
     }
 
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    /**
+     * Creates a list response with terse items. The common list parameters <code>limit</code>, <code>cursor</code>
+     * and <code>fields</code> of the query are applied, see {@link ListQuery}.
+     *
+     * @param query the query
+     * @param items the items after applying the resource specific filters
+     * @return the response
+     */
+    protected final Response listTerse(Query query, Stream<? extends Entity> items) {
+        return listResponse(query, items, false);
+    }
+
+    /**
+     * Creates a list response with verbose items. The common list parameters are applied like in
+     * {@link #listTerse(Query, Stream)}.
+     *
+     * @param query the query
+     * @param items the items after applying the resource specific filters
+     * @return the response
+     */
+    protected final Response listVerbose(Query query, Stream<? extends Entity> items) {
+        return listResponse(query, items, true);
+    }
+
+    /**
+     * Returns the entity tag of the list representation. The tag must be determined before the list is loaded.
+     *
+     * @param query the query
+     * @return the entity tag or <code>null</code> if the list cannot be tagged
+     */
+    protected String listEntityTag(Query query) {
+        return null;
+    }
+
+    protected boolean isGetAllowed(Authorisation authorisation, T object, Query query) {
         return isAllowed(authorisation);
     }
 
-    protected Response get(Authorisation authorisation, Query query) {
+    protected Response get(Authorisation authorisation, T object, Query query) {
         return Response.methodNotAllowed();
     }
 
+    /**
+     * Returns the entity tag of the object representation. The tag must be determined before the object is
+     * serialised.
+     *
+     * @param object the object
+     * @param query the query
+     * @return the entity tag or <code>null</code> if the object cannot be tagged
+     */
+    protected String getEntityTag(T object, Query query) {
+        return null;
+    }
+
     protected boolean isCreateAllowed(Authorisation authorisation, JsonObject data) {
         return isAllowed(authorisation);
     }
@@ -86,44 +201,89 @@ public abstract class ObjectResource extends AbstractRequestHandler {
         return Response.methodNotAllowed();
     }
 
-    protected boolean isUpdateAllowed(Authorisation authorisation, JsonObject data) {
+    protected boolean isUpdateAllowed(Authorisation authorisation, T object, JsonObject data) {
         return isAllowed(authorisation);
     }
 
-    protected Response update(Authorisation authorisation, JsonObject data) {
+    protected Response update(Authorisation authorisation, T object, JsonObject data) {
         return Response.methodNotAllowed();
     }
 
-    protected boolean isDeleteAllowed(Authorisation authorisation) {
+    protected boolean isDeleteAllowed(Authorisation authorisation, T object) {
         return isAllowed(authorisation);
     }
 
-    protected Response delete(Authorisation authorisation) {
+    protected Response delete(Authorisation authorisation, T object) {
         return Response.methodNotAllowed();
     }
 
     /**
-     * Parses the resource ID.
+     * Checks if the resource ID is well-formed. If <code>false</code> is returned, a <i>bad request</i> response is
+     * sent to the client.
+     *
+     * @param resourceId the ID string to be checked
+     * @return <code>true</code> if the resource ID can be parsed
+     */
+    protected boolean isValidResourceId(String resourceId) {
+        return true;
+    }
+
+    /**
+     * Parses the resource ID and loads the corresponding object. If <code>null</code> is returned, a <i>not found</i>
+     * response is sent to the client.
      *
      * @param resourceId the ID string to be parsed
-     * @return <tt>null</tt> or an error response
+     * @return the corresponding object or <code>null</code>
      */
-    protected abstract Response parseResourceId(String resourceId);
+    protected abstract T parseResourceId(String resourceId);
+
+    private Response listResponse(Query query, Stream<? extends Entity> items, boolean verbose) {
+        ListQuery listQuery = ListQuery.parse(query);
+        if (listQuery == null) {
+            items.close();
+            return Response.badRequest("Invalid list parameters.");
+        }
+
+        return listQuery.createResponse(items, verbose);
+    }
+
+    private Response handleRead(Request<Authorisation> request, Authorisation authorisation, String resourceId) {
+        Query query = request.getQuery();
+        if (Util.isEmpty(resourceId)) {
+            return handleList(request, authorisation, query);
+        }
+
+        if (!isValidResourceId(resourceId)) {
+            return Response.badRequest("Invalid resource identifier.");
+        }
+
+        T object = parseResourceId(resourceId);
+        if (object == null) {
+            return Response.notFound();
+        }
+
+        return handleGet(request, authorisation, resourceId, object, query);
+    }
 
-    private Response handleList(Authorisation authorisation, Query query) {
+    private Response handleList(Request<Authorisation> request, Authorisation authorisation, Query query) {
         if (!isListAllowed(authorisation, query)) {
             return Response.forbidden();
         }
 
-        return list(authorisation, query);
+        return conditionalGet(
+            request, listEntityTag(query), () -> admit(request, null, () -> list(authorisation, query))
+        );
     }
 
-    private Response handleGet(Authorisation authorisation, Query query) {
-        if (!isGetAllowed(authorisation, query)) {
+    private Response handleGet(Request<Authorisation> request, Authorisation authorisation, String resourceId,
+                               T object, Query query) {
+        if (!isGetAllowed(authorisation, object, query)) {
             return Response.forbidden();
         }
 
-        return get(authorisation, query);
+        return conditionalGet(request, getEntityTag(object, query), () -> admit(
+            request, resourceId, () -> get(authorisation, object, query)
+        ));
     }
 
     private Response handleCreate(Authorisation authorisation, JsonObject json) {
@@ -134,19 +294,19 @@ public abstract class ObjectResource extends AbstractRequestHandler {
         return create(authorisation, json);
     }
 
-    private Response handleUpdate(Authorisation authorisation, JsonObject json) {
-        if (!isUpdateAllowed(authorisation, json)) {
+    private Response handleUpdate(Authorisation authorisation, T object, JsonObject json) {
+        if (!isUpdateAllowed(authorisation, object, json)) {
             return Response.forbidden();
         }
 
-        return update(authorisation, json);
+        return update(authorisation, object, json);
     }
 
-    private Response handleDelete(Authorisation authorisation) {
-        if (!isDeleteAllowed(authorisation)) {
+    private Response handleDelete(Authorisation authorisation, T object) {
+        if (!isDeleteAllowed(authorisation, object)) {
             return Response.forbidden();
         }
 
-        return delete(authorisation);
+        return delete(authorisation, object);
     }
 }
@@ -24,10 +24,9 @@ import ch.kinet.pensen.data.PensenData;
 public final class PayrollTypeResource extends EntityResource<PayrollType> {
 
     private static final String QUERY_LESSON_BASED = "lessonBased";
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public PayrollTypeResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -49,6 +48,11 @@ public final class PayrollTypeResource extends EntityResource<PayrollType> {
         }
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return EntityTag.create(pensenData.getVersion(PayrollType.class));
+    }
+
     @Override
     protected PayrollType loadObject(int id) {
         return pensenData.getPayrollTypeById(id);
@@ -31,10 +31,10 @@ import java.util.Set;
 public final class PoolEntryResource extends EntityResource<PoolEntry> {
 
     private static final String QUERY_SCHOOL_YEAR = "schoolYear";
-    private PensenData pensenData;
+    private static final String QUERY_TEACHER = "teacher";
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public PoolEntryResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -50,16 +50,25 @@ public final class PoolEntryResource extends EntityResource<PoolEntry> {
             return Response.badRequest();
         }
 
-        return Response.jsonArrayTerse(pensenData.loadPoolEntries(schoolYear));
+        if (!query.hasKey(QUERY_TEACHER)) {
+            return listTerse(query, pensenData.loadPoolEntries(schoolYear));
+        }
+
+        Teacher teacher = pensenData.getTeacherById(query.getInt(QUERY_TEACHER, -1));
+        if (teacher == null) {
+            return Response.notFound();
+        }
+
+        return listTerse(query, pensenData.loadPoolEntries(schoolYear, teacher));
     }
 
     @Override
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    protected boolean isGetAllowed(Authorisation authorisation, PoolEntry object, Query query) {
         return authorisation.isAuthenticated();
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
+    protected Response get(Authorisation authorisation, PoolEntry object, Query query) {
         return Response.jsonVerbose(object);
     }
 
@@ -96,18 +105,18 @@ public final class PoolEntryResource extends EntityResource<PoolEntry> {
             return Response.badRequest("Ein Typ muss ausgewählt werden.");
         }
 
-        pensenData.createPoolEntry(description, percent1, percent2, schoolYear, teacher, type);
+        PoolEntry result = pensenData.createPoolEntry(description, percent1, percent2, schoolYear, teacher, type);
         pensenData.recalculateBalance(schoolYear, teacher);
-        return Response.created();
+        return created(result);
     }
 
     @Override
-    protected boolean isUpdateAllowed(Authorisation authorisation, JsonObject data) {
+    protected boolean isUpdateAllowed(Authorisation authorisation, PoolEntry object, JsonObject data) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response update(Authorisation authorisation, JsonObject data) {
+    protected Response update(Authorisation authorisation, PoolEntry object, JsonObject data) {
         if (object.getSchoolYear().isArchived()) {
             return Response.badRequest("Buchungen in archivierten Schuljahren können nicht verändert werden.");
         }
@@ -170,12 +179,12 @@ public final class PoolEntryResource extends EntityResource<PoolEntry> {
     }
 
     @Override
-    protected boolean isDeleteAllowed(Authorisation authorisation) {
+    protected boolean isDeleteAllowed(Authorisation authorisation, PoolEntry object) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response delete(Authorisation authorisation) {
+    protected Response delete(Authorisation authorisation, PoolEntry object) {
         if (object.getSchoolYear().isArchived()) {
             return Response.forbidden();
         }
@@ -23,10 +23,9 @@ import ch.kinet.pensen.data.PoolType;
 
 public final class PoolTypeResource extends EntityResource<PoolType> {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public PoolTypeResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -40,6 +39,11 @@ public final class PoolTypeResource extends EntityResource<PoolType> {
         return Response.jsonArrayTerse(pensenData.streamPoolTypes());
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return EntityTag.create(pensenData.getVersion(PoolType.class));
+    }
+
     @Override
     protected PoolType loadObject(int id) {
         return pensenData.getPoolTypeById(id);
@@ -33,10 +33,10 @@ import java.util.Set;
 public final class PostingResource extends EntityResource<Posting> {
 
     private static final String QUERY_SCHOOL_YEAR = "schoolYear";
-    private PensenData pensenData;
+    private static final String QUERY_TEACHER = "teacher";
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public PostingResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -52,16 +52,25 @@ public final class PostingResource extends EntityResource<Posting> {
             return Response.badRequest();
         }
 
-        return Response.jsonArrayTerse(pensenData.loadPostings(schoolYear));
+        if (!query.hasKey(QUERY_TEACHER)) {
+            return listTerse(query, pensenData.loadPostings(schoolYear));
+        }
+
+        Teacher teacher = pensenData.getTeacherById(query.getInt(QUERY_TEACHER, -1));
+        if (teacher == null) {
+            return Response.notFound();
+        }
+
+        return listTerse(query, pensenData.loadPostings(schoolYear, teacher));
     }
 
     @Override
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    protected boolean isGetAllowed(Authorisation authorisation, Posting object, Query query) {
         return authorisation.isAuthenticated();
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
+    protected Response get(Authorisation authorisation, Posting object, Query query) {
         JsonObject result = object.toJsonVerbose();
         result.put(Posting.JSON_DETAILS, pensenData.loadPostingDetails(object).toJsonVerbose());
         return Response.jsonVerbose(result);
@@ -99,16 +108,16 @@ public final class PostingResource extends EntityResource<Posting> {
         ValueMap<PostingType> details = ValueMap.parseJson(data, Posting.JSON_DETAILS, pensenData.streamPostingTypes(), 0);
         pensenData.savePostingDetails(result, details);
         pensenData.recalculateBalance(schoolYear, teacher);
-        return Response.created();
+        return created(result);
     }
 
     @Override
-    protected boolean isUpdateAllowed(Authorisation authorisation, JsonObject data) {
+    protected boolean isUpdateAllowed(Authorisation authorisation, Posting object, JsonObject data) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response update(Authorisation authorisation, JsonObject data) {
+    protected Response update(Authorisation authorisation, Posting object, JsonObject data) {
         if (object.getSchoolYear().isArchived()) {
             return Response.badRequest("Buchungen in archivierten Schuljahren können nicht verändert werden.");
         }
@@ -158,12 +167,12 @@ public final class PostingResource extends EntityResource<Posting> {
     }
 
     @Override
-    protected boolean isDeleteAllowed(Authorisation authorisation) {
+    protected boolean isDeleteAllowed(Authorisation authorisation, Posting object) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response delete(Authorisation authorisation) {
+    protected Response delete(Authorisation authorisation, Posting object) {
         if (object.getSchoolYear().isArchived()) {
             return Response.forbidden();
         }
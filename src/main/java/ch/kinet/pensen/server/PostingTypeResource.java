@@ -23,10 +23,9 @@ import ch.kinet.pensen.data.PostingType;
 
 public final class PostingTypeResource extends EntityResource<PostingType> {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public PostingTypeResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -40,6 +39,11 @@ public final class PostingTypeResource extends EntityResource<PostingType> {
         return Response.jsonArrayTerse(pensenData.streamPostingTypes());
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return EntityTag.create(pensenData.getVersion(PostingType.class));
+    }
+
     @Override
     protected PostingType loadObject(int id) {
         return null;
@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.Data;
+import ch.kinet.pensen.data.Account;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores the products of jobs. If a storage directory is configured, products are written to files in that directory
+ * and only their metadata is kept in memory. Otherwise, products are kept in memory. In both cases, products expire
+ * after a configured time and the oldest products are removed first if the total size of the products exceeds the
+ * configured limit. Products can be stored under a key, so that jobs with the same key reuse them while they are
+ * available. A product may only be read by the accounts whose jobs have created or reused it, the product of a global
+ * job by every authenticated account.
+ */
+public final class ProductStorage {
+
+    private static final int MAX_KEYS = 256;
+    private static final String SUFFIX = ".product";
+    private final Path directory;
+    private final Map<String, String> keys = new LinkedHashMap<>();
+    private final long maxAgeMillis;
+    private final long maxBytes;
+    private final Map<String, Product> products = new ConcurrentHashMap<>();
+
+    static ProductStorage create(Configuration config) {
+        String directory = config.getStorageDirectory();
+        return new ProductStorage(
+            directory == null ? null : Path.of(directory), config.getStorageMaxAgeMinutes() * 60_000L,
+            config.getStorageMaxMegabytes() * 1024L * 1024L
+        );
+    }
+
+    private ProductStorage(Path directory, long maxAgeMillis, long maxBytes) {
+        this.directory = directory;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxBytes = maxBytes;
+        if (directory != null) {
+            removeLeftovers();
+        }
+    }
+
+    /**
+     * Stores a product.
+     *
+     * @param data the product
+     * @param owner the account which may read the product or <code>null</code> if every authenticated account may
+     * read it
+     * @return the id under which the product can be retrieved
+     */
+    public String add(Data data, Account owner) {
+        return add(null, data, owner);
+    }
+
+    /**
+     * Stores a product under a key. If the number of keys exceeds the limit, the oldest keys are removed.
+     *
+     * @param key the key of the product or <code>null</code> if the product cannot be reused
+     * @param data the product
+     * @param owner the account which may read the product or <code>null</code> if every authenticated account may
+     * read it
+     * @return the id under which the product can be retrieved
+     */
+    public String add(String key, Data data, Account owner) {
+        String result = store(data, owner);
+        if (key != null) {
+            synchronized (keys) {
+                // a key stored again counts as the newest one
+                keys.remove(key);
+                keys.put(key, result);
+                Iterator<String> i = keys.keySet().iterator();
+                while (keys.size() > MAX_KEYS) {
+                    i.next();
+                    i.remove();
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the id of the product stored under a key. The account reusing the product may read it from now on.
+     *
+     * @param key the key of the product
+     * @param owner the account reusing the product or <code>null</code> if every authenticated account may read it
+     * @return the id or <code>null</code> if no product is stored under the key or the product is not available
+     * anymore
+     */
+    public String find(String key, Account owner) {
+        if (key == null) {
+            return null;
+        }
+
+        String result;
+        synchronized (keys) {
+            result = keys.get(key);
+        }
+
+        if (result == null) {
+            return null;
+        }
+
+        Product product = get(result);
+        if (product == null) {
+            synchronized (keys) {
+                keys.remove(key, result);
+            }
+
+            return null;
+        }
+
+        product.allow(owner);
+        return result;
+    }
+
+    /**
+     * Returns a product.
+     *
+     * @param id the id of the product
+     * @return the product or <code>null</code> if there is no such product or it has expired
+     */
+    Product get(String id) {
+        if (id == null) {
+            return null;
+        }
+
+        Product result = products.get(id);
+        if (result != null && result.isExpired(System.currentTimeMillis())) {
+            remove(id, result);
+            return null;
+        }
+
+        return result;
+    }
+
+    private String store(Data data, Account owner) {
+        String id = UUID.randomUUID().toString();
+        byte[] content = data.getContent();
+        Product product;
+        if (directory == null) {
+            product = new Product(null, content, data.getFileName(), data.getMimeType(), content.length, owner);
+        }
+        else {
+            Path path = directory.resolve(id + SUFFIX);
+            try {
+                Files.write(path, content);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
+            product = new Product(path, null, data.getFileName(), data.getMimeType(), content.length, owner);
+        }
+
+        products.put(id, product);
+        evict();
+        return id;
+    }
+
+    private synchronized void evict() {
+        long now = System.currentTimeMillis();
+        products.forEach((id, product) -> {
+            if (product.isExpired(now)) {
+                remove(id, product);
+            }
+        });
+
+        long total = products.values().stream().mapToLong(Product::getSize).sum();
+        List<Map.Entry<String, Product>> oldestFirst = new ArrayList<>(products.entrySet());
+        oldestFirst.sort(Comparator.comparingLong(entry -> entry.getValue().created));
+        for (Map.Entry<String, Product> entry : oldestFirst) {
+            if (total <= maxBytes) {
+                return;
+            }
+
+            if (remove(entry.getKey(), entry.getValue())) {
+                total -= entry.getValue().getSize();
+            }
+        }
+    }
+
+    private boolean remove(String id, Product product) {
+        if (!products.remove(id, product)) {
+            return false;
+        }
+
+        if (product.path == null) {
+            return true;
+        }
+
+        try {
+            // a download in progress keeps reading from its open file channel
+            Files.deleteIfExists(product.path);
+        }
+        catch (IOException ex) {
+            System.err.println("Cannot delete product file " + product.path + ".");
+        }
+
+        return true;
+    }
+
+    private void removeLeftovers() {
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    final class Product {
+
+        private final byte[] content;
+        private final long created;
+        private final String fileName;
+        private final String mimeType;
+        private final Set<Account> owners = ConcurrentHashMap.newKeySet();
+        private final Path path;
+        private volatile boolean shared;
+        private final long size;
+
+        Product(Path path, byte[] content, String fileName, String mimeType, long size, Account owner) {
+            this.content = content;
+            this.created = System.currentTimeMillis();
+            this.fileName = fileName;
+            this.mimeType = mimeType;
+            this.path = path;
+            this.size = size;
+            allow(owner);
+        }
+
+        String getFileName() {
+            return fileName;
+        }
+
+        String getMimeType() {
+            return mimeType;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        /**
+         * Returns whether the product may be read with the specified authorisation.
+         */
+        boolean isAllowed(Authorisation authorisation) {
+            if (!authorisation.isAuthenticated()) {
+                return false;
+            }
+
+            return shared || owners.contains(authorisation.getAccount());
+        }
+
+        /**
+         * Opens the content of the product for reading. A product stored on disk is opened immediately, so that the
+         * content remains readable even if the product is removed before it has been sent.
+         *
+         * @return the reader, which must be closed
+         * @throws UncheckedIOException if the product file cannot be opened, e.g. because the product has been removed
+         */
+        Reader open() {
+            if (path == null) {
+                return new Reader(null, content);
+            }
+
+            try {
+                return new Reader(FileChannel.open(path, StandardOpenOption.READ), null);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private void allow(Account owner) {
+            if (owner == null) {
+                shared = true;
+            }
+            else {
+                owners.add(owner);
+            }
+        }
+
+        private boolean isExpired(long now) {
+            return now - created >= maxAgeMillis;
+        }
+    }
+
+    /**
+     * Reads the content of an opened product.
+     */
+    static final class Reader implements Closeable {
+
+        private final FileChannel channel;
+        private final byte[] content;
+
+        private Reader(FileChannel channel, byte[] content) {
+            this.channel = channel;
+            this.content = content;
+        }
+
+        /**
+         * Writes a part of the product to the output stream. A file is transferred by its channel, so that it is
+         * never held on the heap as a whole.
+         *
+         * @param out the output stream
+         * @param start the position of the first byte
+         * @param count the number of bytes
+         */
+        void transferTo(OutputStream out, long start, long count) {
+            try {
+                if (channel == null) {
+                    out.write(content, (int) start, (int) count);
+                }
+                else {
+                    WritableByteChannel target = Channels.newChannel(out);
+                    long position = start;
+                    long end = start + count;
+                    while (position < end) {
+                        // may transfer fewer bytes than requested and none at the end of the file
+                        long transferred = channel.transferTo(position, end - position, target);
+                        if (transferred <= 0) {
+                            break;
+                        }
+
+                        position += transferred;
+                    }
+                }
+
+                out.flush();
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (channel == null) {
+                return;
+            }
+
+            try {
+                channel.close();
+            }
+            catch (IOException ex) {
+                System.err.println("Cannot close product file.");
+            }
+        }
+    }
+}
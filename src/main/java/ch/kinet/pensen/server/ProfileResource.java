@@ -25,10 +25,9 @@ import ch.kinet.http.Response;
 public final class ProfileResource extends GlobalResource {
 
     private static final String JSON_FEATURES = "features";
-    private String[] clientFeatures;
+    private final String[] clientFeatures;
 
-    @Override
-    public void initialize() {
+    public ProfileResource() {
         Configuration config = Configuration.getInstance();
         clientFeatures = config.getClientFeatures().split(",");
     }
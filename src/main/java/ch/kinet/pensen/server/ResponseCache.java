@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Shares the content of expensive responses between requests. Concurrent requests with the same key wait for a
+ * single computation of the content. Completed content is reused for a short time as long as the version of the
+ * underlying data does not change. A mutation changes the version, so that the next request computes new content.
+ * At most {@value #MAX_ENTRIES} entries are kept; beyond that, the least recently used entries are evicted.
+ */
+final class ResponseCache {
+
+    private static final ResponseCache INSTANCE = new ResponseCache();
+    private static final int MAX_ENTRIES = 256;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    static ResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    private ResponseCache() {
+    }
+
+    /**
+     * Returns the content for the specified key and data version. The content is computed by the producer if no
+     * valid content is cached and no computation is in progress.
+     *
+     * @param key identifies the resource and its parameters
+     * @param version the current version of the data the content depends on
+     * @param producer computes the content
+     * @return the content
+     */
+    byte[] get(String key, String version, Supplier<byte[]> producer) {
+        long now = System.currentTimeMillis();
+        long maxAge = Configuration.getInstance().getResponseCacheMillis();
+        CompletableFuture<byte[]> own = new CompletableFuture<>();
+        Entry entry = entries.compute(key, (k, existing) ->
+            existing != null && existing.isValid(version, now, maxAge) ? existing : new Entry(version, now, own)
+        );
+        if (entry.content == own) {
+            try {
+                own.complete(producer.get());
+            }
+            catch (Throwable ex) {
+                // waiting requests must not block forever, not even after an error
+                entries.remove(key, entry);
+                own.completeExceptionally(ex);
+                throw ex;
+            }
+
+            if (entries.size() > MAX_ENTRIES) {
+                evict(now, maxAge);
+            }
+        }
+        else {
+            entry.lastUsed = now;
+        }
+
+        try {
+            return entry.content.join();
+        }
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+
+    /**
+     * Removes expired entries and, if there are still too many, the least recently used completed entries.
+     * Computations in progress are kept, since requests are waiting for them.
+     */
+    private void evict(long now, long maxAge) {
+        entries.values().removeIf(item -> item.content.isDone() && now - item.created >= maxAge);
+        int excess = entries.size() - MAX_ENTRIES;
+        if (excess <= 0) {
+            return;
+        }
+
+        List<Map.Entry<String, Entry>> candidates = new ArrayList<>();
+        for (Map.Entry<String, Entry> item : entries.entrySet()) {
+            if (item.getValue().content.isDone()) {
+                candidates.add(item);
+            }
+        }
+
+        candidates.sort(Comparator.comparingLong(item -> item.getValue().lastUsed));
+        for (int i = 0; i < excess && i < candidates.size(); ++i) {
+            entries.remove(candidates.get(i).getKey(), candidates.get(i).getValue());
+        }
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<byte[]> content;
+        private final long created;
+        private final String version;
+        private volatile long lastUsed;
+
+        Entry(String version, long created, CompletableFuture<byte[]> content) {
+            this.content = content;
+            this.created = created;
+            this.lastUsed = created;
+            this.version = version;
+        }
+
+        boolean isValid(String currentVersion, long now, long maxAge) {
+            // a computation in progress is always shared
+            return version.equals(currentVersion) && (!content.isDone() || now - created < maxAge);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.Util;
+import ch.kinet.http.Request;
+import ch.kinet.http.Response;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Negotiates the content encoding of responses with the client and compresses response bodies while they are being
+ * written. The encoding is negotiated once per request by the server and picked up by the response factories of this
+ * package. The number of bytes before and after compression is recorded per resource.
+ */
+final class ResponseEncoding {
+
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final ThreadLocal<ResponseEncoding> CURRENT = new ThreadLocal<>();
+    private static final ResponseEncoding IDENTITY = new ResponseEncoding(null, "");
+    private static final String IDENTITY_TOKEN = "identity";
+    private static final Map<String, Statistics> STATISTICS = new ConcurrentHashMap<>();
+    private static final String VARY = "Vary";
+    private final Coding coding;
+    private final String resourceName;
+
+    static void begin(Request<Authorisation> request, String resourceName) {
+        CURRENT.set(new ResponseEncoding(negotiate(request.getHeader(ACCEPT_ENCODING)), resourceName));
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static ResponseEncoding current() {
+        ResponseEncoding result = CURRENT.get();
+        return result == null ? IDENTITY : result;
+    }
+
+    static Map<String, Statistics> getStatistics() {
+        return Collections.unmodifiableMap(STATISTICS);
+    }
+
+    /**
+     * Selects the coding with the highest quality value. Codings that are not listed explicitly receive the quality
+     * of "*". If identity is preferred over every supported coding, or no supported coding is acceptable, the body is
+     * sent as is.
+     */
+    private static Coding negotiate(String acceptEncoding) {
+        if (!Configuration.getInstance().isCompressionEnabled() || Util.isEmpty(acceptEncoding)) {
+            return null;
+        }
+
+        Map<String, Double> qualities = new HashMap<>();
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String token = params[0].trim().toLowerCase();
+            if (!token.isEmpty()) {
+                qualities.merge(token, parseQuality(params), Math::max);
+            }
+        }
+
+        double any = qualities.getOrDefault("*", 0.0);
+        Coding result = null;
+        double resultQuality = 0;
+        for (Coding coding : Coding.values()) {
+            double quality = coding.quality(qualities, any);
+            if (quality > resultQuality) {
+                result = coding;
+                resultQuality = quality;
+            }
+        }
+
+        // Identity is acceptable unless it is excluded explicitly or by "*;q=0".
+        double identity = qualities.getOrDefault(IDENTITY_TOKEN, qualities.containsKey("*") ? any : 1.0);
+        return identity > resultQuality ? null : result;
+    }
+
+    private static double parseQuality(String[] params) {
+        for (int i = 1; i < params.length; ++i) {
+            String param = params[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    double result = Double.parseDouble(param.substring(2));
+                    return result >= 0 && result <= 1 ? result : 0;
+                }
+                catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+    }
+
+    private ResponseEncoding(Coding coding, String resourceName) {
+        this.coding = coding;
+        this.resourceName = resourceName;
+    }
+
+    /**
+     * Creates a response whose body is written by the specified consumer. The body is compressed on the fly if the
+     * client accepts a supported encoding. The compression threshold does not apply here: the size of a streamed body
+     * is not known before the Content-Encoding header is sent, so callers that know the size should use
+     * {@link #forSize(int)} first. The output stream passed to the consumer must not be closed. An admission
+     * permit held by the request is released when the body has been written or has failed, or when the body has not
+     * been started in time, see {@link StreamCompletion}.
+     */
+    Response createResponse(String contentType, Consumer<OutputStream> body) {
+        return createResponse(contentType, body, () -> {});
+    }
+
+    /**
+     * Creates a response whose body is written by the specified consumer like
+     * {@link #createResponse(String, Consumer)}. The completion action runs after the body has been written, has
+     * failed or has not been started in time.
+     */
+    Response createResponse(String contentType, Consumer<OutputStream> body, Runnable completion) {
+        Runnable permit = AdmissionControl.detach();
+        Response result = StreamCompletion.create(contentType, out -> {
+            try (OutputStream encoded = new EncodingOutputStream(out)) {
+                body.accept(encoded);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, () -> {
+            try {
+                completion.run();
+            }
+            finally {
+                if (permit != null) {
+                    permit.run();
+                }
+            }
+        });
+
+        if (coding != null) {
+            result.setHeader(CONTENT_ENCODING, coding.token());
+        }
+
+        if (Configuration.getInstance().isCompressionEnabled()) {
+            result.setHeader(VARY, ACCEPT_ENCODING);
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates a response with the specified content. Content smaller than the configured threshold is sent
+     * uncompressed.
+     */
+    Response createResponse(String contentType, byte[] content) {
+        return forSize(content.length).createResponse(contentType, out -> {
+            try {
+                out.write(content);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * Returns an encoding that sends bodies of the specified size uncompressed if they are smaller than the configured
+     * threshold.
+     */
+    ResponseEncoding forSize(int size) {
+        if (coding == null || size >= Configuration.getInstance().getCompressionThreshold()) {
+            return this;
+        }
+
+        return new ResponseEncoding(null, resourceName);
+    }
+
+    boolean isCompressed() {
+        return coding != null;
+    }
+
+    private void record(long rawBytes, long sentBytes) {
+        if (!resourceName.isEmpty()) {
+            STATISTICS.computeIfAbsent(resourceName, key -> new Statistics()).add(rawBytes, sentBytes);
+        }
+    }
+
+    private enum Coding {
+        Gzip("gzip", "x-gzip"), Deflate("deflate");
+
+        private final String[] tokens;
+
+        private Coding(String... tokens) {
+            this.tokens = tokens;
+        }
+
+        String token() {
+            return tokens[0];
+        }
+
+        /**
+         * Returns the quality the client has assigned to this coding, or the quality of "*" if the coding is not
+         * listed.
+         */
+        double quality(Map<String, Double> qualities, double any) {
+            Double result = null;
+            for (String token : tokens) {
+                Double quality = qualities.get(token);
+                if (quality != null && (result == null || quality > result)) {
+                    result = quality;
+                }
+            }
+
+            return result == null ? any : result;
+        }
+    }
+
+    /**
+     * Contains the accumulated response sizes of a resource.
+     */
+    static final class Statistics {
+
+        private final LongAdder rawBytes = new LongAdder();
+        private final LongAdder responses = new LongAdder();
+        private final LongAdder sentBytes = new LongAdder();
+
+        long getRawBytes() {
+            return rawBytes.sum();
+        }
+
+        /**
+         * Returns the ratio of sent bytes to uncompressed bytes.
+         */
+        double getRatio() {
+            long raw = rawBytes.sum();
+            return raw == 0 ? 1 : (double) sentBytes.sum() / raw;
+        }
+
+        long getResponses() {
+            return responses.sum();
+        }
+
+        long getSentBytes() {
+            return sentBytes.sum();
+        }
+
+        private void add(long raw, long sent) {
+            responses.increment();
+            rawBytes.add(raw);
+            sentBytes.add(sent);
+        }
+    }
+
+    /**
+     * Passes the body through the negotiated encoder to the response stream. Closing this stream finishes the
+     * encoder, but leaves the response stream open.
+     */
+    private final class EncodingOutputStream extends OutputStream {
+
+        private final Deflater deflater;
+        private final OutputStream encoder;
+        private final SentOutputStream sent;
+        private boolean closed;
+        private long rawBytes;
+
+        EncodingOutputStream(OutputStream out) throws IOException {
+            sent = new SentOutputStream(out);
+            int level = Configuration.getInstance().getCompressionLevel();
+            if (coding == null) {
+                deflater = null;
+                encoder = sent;
+            }
+            else if (coding == Coding.Gzip) {
+                deflater = null;
+                encoder = new GzipOutputStream(sent, level);
+            }
+            else {
+                deflater = new Deflater(level);
+                encoder = new DeflaterOutputStream(sent, deflater, BUFFER_SIZE);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            encoder.write(b);
+            ++rawBytes;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            encoder.write(b, off, len);
+            rawBytes += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            encoder.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            try {
+                encoder.close();
+            }
+            finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+
+                record(rawBytes, sent.count);
+            }
+        }
+    }
+
+    /**
+     * Writes a gzip stream with a configurable compression level.
+     */
+    private static final class GzipOutputStream extends GZIPOutputStream {
+
+        GzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(level);
+        }
+    }
+
+    /**
+     * Counts the bytes sent to the response stream. Flushing passes through to the response stream, so that streamed
+     * bodies reach the client while they are written. Closing only flushes the response stream and leaves it open.
+     */
+    private static final class SentOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private long count;
+
+        SentOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2022 - 2024 by Sebastian Forster, Stefan Rothe
+ * Copyright (C) 2022 - 2025 by Sebastian Forster, Stefan Rothe
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU Lesser General Public License as published by
@@ -21,49 +21,52 @@ import java.util.Map;
 
 public final class Routes {
 
-    private final Map<String, Class<? extends AbstractRequestHandler>> resourceClasses = new HashMap<>();
+    private final Map<String, AbstractRequestHandler> resources = new HashMap<>();
 
     private static final Routes INSTANCE = new Routes();
 
-    static Class<? extends AbstractRequestHandler> getResource(String endpoint) {
-        return INSTANCE.resourceClasses.get(endpoint);
+    static AbstractRequestHandler getResource(String endpoint) {
+        return INSTANCE.resources.get(endpoint);
     }
 
     private Routes() {
-        addResource("authorisation", ch.kinet.pensen.server.AuthorisationResource.class);
-        addResource("calculationmode", ch.kinet.pensen.server.CalculationModeResource.class);
-        addResource("config", ch.kinet.pensen.server.ConfigResource.class);
-        addResource("course", ch.kinet.pensen.server.CourseResource.class);
-        addResource("coursetable", ch.kinet.pensen.server.CourseTableResource.class);
-        addResource("curriculum", ch.kinet.pensen.server.CurriculumResource.class);
-        addResource("division", ch.kinet.pensen.server.DivisionResource.class);
-        addResource("employment", ch.kinet.pensen.server.EmploymentResource.class);
-        addResource("file", ch.kinet.pensen.server.FileResource.class);
-        addResource("job", ch.kinet.pensen.server.JobResource.class);
-        addResource("gender", ch.kinet.pensen.server.GenderResource.class);
-        addResource("grade", ch.kinet.pensen.server.GradeResource.class);
-        addResource("lessontable", ch.kinet.pensen.server.LessonTableResource.class);
-        addResource("lessontype", ch.kinet.pensen.server.LessonTypeResource.class);
-        addResource("note", ch.kinet.pensen.server.NoteResource.class);
-        addResource("payrolltype", ch.kinet.pensen.server.PayrollTypeResource.class);
-        addResource("poolentry", ch.kinet.pensen.server.PoolEntryResource.class);
-        addResource("pooltype", ch.kinet.pensen.server.PoolTypeResource.class);
-        addResource("posting", ch.kinet.pensen.server.PostingResource.class);
-        addResource("postingtype", ch.kinet.pensen.server.PostingTypeResource.class);
-        addResource("profile", ch.kinet.pensen.server.ProfileResource.class);
-        addResource("schoolclass", ch.kinet.pensen.server.SchoolClassResource.class);
-        addResource("schoolyear", ch.kinet.pensen.server.SchoolYearResource.class);
-        addResource("settings", ch.kinet.pensen.server.SettingsResource.class);
-        addResource("subject", ch.kinet.pensen.server.SubjectResource.class);
-        addResource("subjectcategory", ch.kinet.pensen.server.SubjectCategoryResource.class);
-        addResource("subjecttype", ch.kinet.pensen.server.SubjectTypeResource.class);
-        addResource("teacher", ch.kinet.pensen.server.TeacherResource.class);
-        addResource("thesis", ch.kinet.pensen.server.ThesisResource.class);
-        addResource("thesistype", ch.kinet.pensen.server.ThesisTypeResource.class);
-        addResource("workload", ch.kinet.pensen.server.WorkloadResource.class);
+        addResource("authorisation", new AuthorisationResource());
+        addResource("batch", new BatchResource());
+        addResource("calculationmode", new CalculationModeResource());
+        addResource("config", new ConfigResource());
+        addResource("course", new CourseResource());
+        addResource("coursetable", new CourseTableResource());
+        addResource("curriculum", new CurriculumResource());
+        addResource("division", new DivisionResource());
+        addResource("employment", new EmploymentResource());
+        addResource("events", new EventResource());
+        addResource("file", new FileResource());
+        addResource("job", new JobResource());
+        addResource("gender", new GenderResource());
+        addResource("grade", new GradeResource());
+        addResource("lessontable", new LessonTableResource());
+        addResource("lessontype", new LessonTypeResource());
+        addResource("metrics", new MetricsResource());
+        addResource("note", new NoteResource());
+        addResource("payrolltype", new PayrollTypeResource());
+        addResource("poolentry", new PoolEntryResource());
+        addResource("pooltype", new PoolTypeResource());
+        addResource("posting", new PostingResource());
+        addResource("postingtype", new PostingTypeResource());
+        addResource("profile", new ProfileResource());
+        addResource("schoolclass", new SchoolClassResource());
+        addResource("schoolyear", new SchoolYearResource());
+        addResource("settings", new SettingsResource());
+        addResource("subject", new SubjectResource());
+        addResource("subjectcategory", new SubjectCategoryResource());
+        addResource("subjecttype", new SubjectTypeResource());
+        addResource("teacher", new TeacherResource());
+        addResource("thesis", new ThesisResource());
+        addResource("thesistype", new ThesisTypeResource());
+        addResource("workload", new WorkloadResource());
     }
 
-    private void addResource(String endpoint, Class<? extends AbstractRequestHandler> resourceClass) {
-        resourceClasses.put(endpoint, resourceClass);
+    private void addResource(String endpoint, AbstractRequestHandler resource) {
+        resources.put(endpoint, resource);
     }
 }
@@ -33,10 +33,9 @@ public final class SchoolClassResource extends EntityResource<SchoolClass> {
 
     private static final String QUERY_GRADE = "grade";
     private static final String QUERY_SCHOOL_YEAR = "schoolYear";
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public SchoolClassResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -65,12 +64,12 @@ public final class SchoolClassResource extends EntityResource<SchoolClass> {
     }
 
     @Override
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    protected boolean isGetAllowed(Authorisation authorisation, SchoolClass object, Query query) {
         return authorisation.isAuthenticated();
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
+    protected Response get(Authorisation authorisation, SchoolClass object, Query query) {
         return Response.jsonVerbose(object);
     }
 
@@ -94,17 +93,17 @@ public final class SchoolClassResource extends EntityResource<SchoolClass> {
 
         int graduationYear = data.getInt(SchoolClass.JSON_GRADUATION_YEAR);
 
-        object = pensenData.createSchoolClass(code, curriculum, division, graduationYear);
-        return Response.createdJsonVerbose(object);
+        SchoolClass result = pensenData.createSchoolClass(code, curriculum, division, graduationYear);
+        return Response.createdJsonVerbose(result);
     }
 
     @Override
-    protected boolean isUpdateAllowed(Authorisation authorisation, JsonObject data) {
+    protected boolean isUpdateAllowed(Authorisation authorisation, SchoolClass object, JsonObject data) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response update(Authorisation authorisation, JsonObject data) {
+    protected Response update(Authorisation authorisation, SchoolClass object, JsonObject data) {
         boolean archived = data.getBoolean(SchoolClass.JSON_ARCHIVED, false);
         String code = data.getString(SchoolClass.JSON_CODE);
         Division division = pensenData.getDivisionById(data.getObjectId(SchoolClass.JSON_DIVISION, -1));
@@ -133,12 +132,12 @@ public final class SchoolClassResource extends EntityResource<SchoolClass> {
     }
 
     @Override
-    protected boolean isDeleteAllowed(Authorisation authorisation) {
+    protected boolean isDeleteAllowed(Authorisation authorisation, SchoolClass object) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response delete(Authorisation authorisation) {
+    protected Response delete(Authorisation authorisation, SchoolClass object) {
         System.out.println("Deleting schoolClass");
         if (pensenData.deleteSchoolClass(object)) {
             return Response.ok();
@@ -148,8 +147,28 @@ public final class SchoolClassResource extends EntityResource<SchoolClass> {
         }
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return entityTag();
+    }
+
+    @Override
+    protected String getEntityTag(SchoolClass object, Query query) {
+        return entityTag();
+    }
+
     @Override
     protected SchoolClass loadObject(int id) {
         return pensenData.getSchoolClassById(id);
     }
+
+    private String entityTag() {
+        // school classes contain curriculum and division, their grade depends on the school year
+        return EntityTag.create(
+            pensenData.getVersion(SchoolClass.class),
+            pensenData.getVersion(Curriculum.class),
+            pensenData.getVersion(Division.class),
+            pensenData.getVersion(SchoolYear.class)
+        );
+    }
 }
@@ -30,10 +30,9 @@ import java.util.Set;
 
 public final class SchoolYearResource extends EntityResource<SchoolYear> {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public SchoolYearResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -48,12 +47,12 @@ public final class SchoolYearResource extends EntityResource<SchoolYear> {
     }
 
     @Override
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    protected boolean isGetAllowed(Authorisation authorisation, SchoolYear object, Query query) {
         return authorisation.isAuthenticated();
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
+    protected Response get(Authorisation authorisation, SchoolYear object, Query query) {
         return Response.jsonVerbose(object);
     }
 
@@ -89,31 +88,31 @@ public final class SchoolYearResource extends EntityResource<SchoolYear> {
             return Response.badRequest();
         }
 
-        object = pensenData.createSchoolYear(calculationMode, code, description, graduationYear, smallGroupSurcharge, weeks);
+        SchoolYear result = pensenData.createSchoolYear(calculationMode, code, description, graduationYear, smallGroupSurcharge, weeks);
         ValueMap<PayrollType> weeklyLessons;
         if (data.hasKey(SchoolYear.JSON_WEEKLY_LESSONS)) {
             weeklyLessons = ValueMap.parseJson(data, SchoolYear.JSON_WEEKLY_LESSONS, pensenData.streamPayrollTypes(), 0);
         }
         else {
             // copy from previous school year
-            SchoolYear previous = object.previous();
+            SchoolYear previous = result.previous();
             weeklyLessons = ValueMap.create();
             pensenData.streamPayrollTypes().forEachOrdered(
                 payrollType -> weeklyLessons.put(payrollType, previous.weeklyLessons(payrollType))
             );
         }
 
-        pensenData.saveWeeklyLessons(object, weeklyLessons);
-        return Response.createdJsonVerbose(object);
+        pensenData.saveWeeklyLessons(result, weeklyLessons);
+        return Response.createdJsonVerbose(result);
     }
 
     @Override
-    protected boolean isUpdateAllowed(Authorisation authorisation, JsonObject data) {
+    protected boolean isUpdateAllowed(Authorisation authorisation, SchoolYear object, JsonObject data) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response update(Authorisation authorisation, JsonObject data) {
+    protected Response update(Authorisation authorisation, SchoolYear object, JsonObject data) {
         boolean archived = data.getBoolean(SchoolYear.JSON_ARCHIVED, false);
         String code = data.getString(SchoolYear.JSON_CODE);
         String description = data.getString(SchoolYear.JSON_DESCRIPTION);
@@ -183,6 +182,16 @@ public final class SchoolYearResource extends EntityResource<SchoolYear> {
         return Response.noContent();
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return EntityTag.create(pensenData.getVersion(SchoolYear.class));
+    }
+
+    @Override
+    protected String getEntityTag(SchoolYear object, Query query) {
+        return EntityTag.create(pensenData.getVersion(SchoolYear.class));
+    }
+
     @Override
     protected SchoolYear loadObject(int id) {
         return pensenData.getSchoolYearById(id);
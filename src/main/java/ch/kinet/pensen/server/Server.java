@@ -16,41 +16,75 @@
  */
 package ch.kinet.pensen.server;
 
-import ch.kinet.Mail;
-import ch.kinet.http.MicrosoftKeys;
 import ch.kinet.http.Request;
 import ch.kinet.http.Response;
 import ch.kinet.http.ServerImplementation;
 import ch.kinet.pensen.data.Account;
 import ch.kinet.pensen.data.PensenData;
+import ch.kinet.pensen.data.QueryRecorder;
 import ch.kinet.sql.StatementPreparationException;
 import io.jsonwebtoken.Claims;
-import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.security.PublicKey;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public final class Server implements ServerImplementation<Authorisation> {
 
-    private final MicrosoftKeys keys = MicrosoftKeys.create(Configuration.getInstance().getMicrosoftTenant());
+    private final ExceptionMailQueue exceptionMails;
+    private final SigningKeyCache keys;
 
     public static void main(final String[] args) {
         int port = Configuration.getInstance().getHttpPort();
         int ioThreads = Configuration.getInstance().getServerIoThreads();
-        int workerThreads = Configuration.getInstance().getServerWorkerThreads();
-        ch.kinet.http.Server.start(port, ioThreads, workerThreads, new Server());
+        if (Configuration.getInstance().isVirtualThreadsEnabled()) {
+            // each request runs on its own virtual thread, db.maxconcurrency bounds the database load
+            ch.kinet.http.Server.start(port, ioThreads, Executors.newVirtualThreadPerTaskExecutor(), new Server());
+        }
+        else {
+            int workerThreads = Configuration.getInstance().getServerWorkerThreads();
+            ch.kinet.http.Server.start(port, ioThreads, workerThreads, new Server());
+        }
+    }
+
+    public Server() {
+        this(new MicrosoftKeyFetcher(Configuration.getInstance().getMicrosoftTenant()));
+    }
+
+    Server(SigningKeyFetcher keyFetcher) {
+        Configuration config = Configuration.getInstance();
+        exceptionMails = new ExceptionMailQueue(
+            () -> config.createMailer(null), config.getSupportMail(), config.getExceptionMailsPerInterval(),
+            TimeUnit.MINUTES.toMillis(config.getExceptionMailIntervalMinutes()), this::logException
+        );
+        keys = new SigningKeyCache(keyFetcher);
+        keys.start();
     }
 
     @Override
     public Authorisation checkAuthorisation(Claims claims) {
+        String cacheKey = AuthorisationCache.key(claims);
+        Authorisation result = cacheKey == null ? null : AuthorisationCache.getInstance().get(cacheKey);
+        if (result != null) {
+            return result;
+        }
+
         String applicationId = claims.get("aud").toString();
         if (!Configuration.getInstance().getMicrosoftClient().equals(applicationId)) {
             return null;
         }
 
         String accountName = claims.get("unique_name").toString();
+        long generation = AuthorisationCache.getInstance().generation(accountName);
         Account account = DB.getDataManager().getData(PensenData.class).getAccountByName(accountName);
-        return account == null ? null : new Authorisation(account);
+        if (account == null) {
+            return null;
+        }
+
+        result = new Authorisation(account);
+        AuthorisationCache.getInstance().put(cacheKey, result, claims.getExpiration(), generation);
+        return result;
     }
 
     @Override
@@ -77,15 +111,16 @@ public final class Server implements ServerImplementation<Authorisation> {
             resourceId = pathParts[2];
         }
 
-        Class<? extends AbstractRequestHandler> resourceClass = Routes.getResource(resourceName);
-        if (resourceClass == null) {
+        AbstractRequestHandler requestHandler = Routes.getResource(resourceName);
+        if (requestHandler == null) {
             return Response.badRequest("Invalid resource name.");
         }
 
         Response response;
+        Metrics.beginRequest(resourceName, request.getMethod().name());
+        QueryRecorder queryRecorder = QueryRecorder.begin(request.getMethod() + " " + request.getPath());
+        ResponseEncoding.begin(request, resourceName);
         try {
-            AbstractRequestHandler requestHandler = resourceClass.getDeclaredConstructor().newInstance();
-            requestHandler.initialize();
             response = requestHandler.handleRequest(request, resourceId);
         }
         catch (StatementPreparationException ex) {
@@ -101,37 +136,25 @@ public final class Server implements ServerImplementation<Authorisation> {
             System.err.println("REQUEST: " + request.getPath());
             ex.printStackTrace(System.err);
         }
+        finally {
+            AdmissionControl.leave();
+            ResponseEncoding.end();
+            QueryRecorder.end();
+        }
 
+        queryRecorder.checkRepeatedStatements();
+        response.setHeader("Server-Timing", queryRecorder.toServerTiming());
+        Metrics.endRequest(response);
         return response;
     }
 
     @Override
     public void handleException(Throwable exception) {
         logException(exception);
-        sendExceptionMail(exception);
-
+        exceptionMails.submit(exception);
     }
 
     private void logException(Throwable exception) {
         exception.printStackTrace(System.err);
     }
-
-    private void sendExceptionMail(Throwable exception) {
-        String supportMail = Configuration.getInstance().getSupportMail();
-        try (StringWriter out = new StringWriter()) {
-            try (PrintWriter writer = new PrintWriter(out)) {
-                exception.printStackTrace(writer);
-                writer.flush();
-                Mail mail = Mail.create();
-                mail.addTo(Configuration.getInstance().getSupportMail());
-                mail.setBody(out.toString());
-                mail.setSubject("Interner Fehler in Pensenmanager");
-                Configuration.getInstance().createMailer(null).sendMail(mail);
-            }
-        }
-        catch (RuntimeException | IOException ex) {
-            System.err.println("Cannot send exception mail to " + supportMail + ".");
-            logException(ex);
-        }
-    }
 }
@@ -27,10 +27,9 @@ import java.util.Set;
 
 public final class SettingsResource extends GlobalResource {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public SettingsResource() {
         pensenData = getData(PensenData.class);
     }
 
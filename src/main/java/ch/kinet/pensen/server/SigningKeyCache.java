@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import java.io.IOException;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the token signing keys in memory. The keys are fetched on startup and refreshed periodically by a background
+ * thread. Looking up a key never blocks on the network: an unknown key id is rejected and triggers an early refresh.
+ * Early refreshes are at least {@link #MIN_REFRESH_MILLIS} apart; a refresh requested sooner is delayed, not dropped,
+ * so that a newly published key is found within that time. Unknown key ids are remembered until a refresh finds them
+ * or for a while, so that forged key ids cannot request a refresh for every request.
+ */
+final class SigningKeyCache {
+
+    private static final long MIN_REFRESH_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final long NEGATIVE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long REFRESH_MINUTES = 60;
+    private final SigningKeyFetcher fetcher;
+    private final AtomicLong lastRefresh = new AtomicLong();
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Long> unknownKeyIds = new ConcurrentHashMap<>();
+    private volatile Map<String, PublicKey> keys = Collections.emptyMap();
+
+    SigningKeyCache(SigningKeyFetcher fetcher) {
+        this.fetcher = fetcher;
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread result = new Thread(runnable, "signing-key-refresh");
+            result.setDaemon(true);
+            return result;
+        });
+    }
+
+    /**
+     * Fetches the keys once in the calling thread and schedules the periodic refresh.
+     */
+    void start() {
+        refresh();
+        scheduler.scheduleWithFixedDelay(this::refresh, REFRESH_MINUTES, REFRESH_MINUTES, TimeUnit.MINUTES);
+    }
+
+    PublicKey getSigningKey(String keyId) {
+        PublicKey result = keys.get(keyId);
+        if (result != null || keyId == null) {
+            return result;
+        }
+
+        long now = System.currentTimeMillis();
+        Long unknownUntil = unknownKeyIds.get(keyId);
+        if (unknownUntil != null && unknownUntil > now) {
+            return null;
+        }
+
+        unknownKeyIds.put(keyId, now + NEGATIVE_TTL_MILLIS);
+        if (refreshPending.compareAndSet(false, true)) {
+            long delay = Math.max(0, lastRefresh.get() + MIN_REFRESH_MILLIS - now);
+            scheduler.schedule(this::refresh, delay, TimeUnit.MILLISECONDS);
+        }
+
+        return null;
+    }
+
+    private void refresh() {
+        // key ids rejected from now on request another refresh
+        refreshPending.set(false);
+        lastRefresh.set(System.currentTimeMillis());
+        try {
+            Map<String, PublicKey> fetched = fetcher.fetchKeys();
+            if (!fetched.isEmpty()) {
+                keys = Collections.unmodifiableMap(fetched);
+                unknownKeyIds.keySet().removeAll(fetched.keySet());
+                unknownKeyIds.values().removeIf(until -> until <= System.currentTimeMillis());
+            }
+        }
+        catch (IOException | RuntimeException ex) {
+            System.err.println("Cannot refresh signing keys: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import java.io.IOException;
+import java.security.PublicKey;
+import java.util.Map;
+
+/**
+ * Fetches the current set of token signing keys from an identity provider.
+ */
+interface SigningKeyFetcher {
+
+    /**
+     * Fetches the signing keys.
+     *
+     * @return the signing keys by key id
+     * @throws IOException if the keys cannot be fetched
+     */
+    Map<String, PublicKey> fetchKeys() throws IOException;
+}
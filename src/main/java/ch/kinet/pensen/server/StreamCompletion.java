@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import ch.kinet.http.Response;
+import java.io.OutputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Creates streamed responses which run a completion action exactly once. The body of a streamed response is written
+ * after the request handler has returned. The completion action runs when the body has been written or writing it
+ * has failed, for example because the client has disconnected. If the body is not written within a timeout, because
+ * the response has been discarded or the connection has been closed before, the completion action runs as well and
+ * the body is skipped. The request metrics of the current thread are recorded together with the completion action.
+ */
+final class StreamCompletion {
+
+    private static final int DONE = 2;
+    private static final int PENDING = 0;
+    private static final ScheduledExecutorService RECLAIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread result = new Thread(runnable, "stream-reclaim");
+        result.setDaemon(true);
+        return result;
+    });
+    private static final long START_TIMEOUT_SECONDS = 60;
+    private static final int STARTED = 1;
+
+    /**
+     * Creates a streamed response.
+     *
+     * @param contentType the content type of the body
+     * @param body writes the body
+     * @param completion runs once after the body has been written, has failed or has not been started in time
+     * @return the response
+     */
+    static Response create(String contentType, Consumer<OutputStream> body, Runnable completion) {
+        Consumer<Response> metrics = Metrics.detachRequest();
+        AtomicInteger state = new AtomicInteger(PENDING);
+        AtomicReference<Response> response = new AtomicReference<>();
+        Runnable done = () -> {
+            try {
+                completion.run();
+            }
+            finally {
+                if (metrics != null) {
+                    metrics.accept(response.get());
+                }
+            }
+        };
+        ScheduledFuture<?> reclaim = RECLAIMER.schedule(() -> {
+            if (state.compareAndSet(PENDING, DONE)) {
+                done.run();
+            }
+        }, START_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Response result = Response.stream(contentType, out -> {
+            if (!state.compareAndSet(PENDING, STARTED)) {
+                return;
+            }
+
+            reclaim.cancel(false);
+            try {
+                body.accept(out);
+            }
+            finally {
+                state.set(DONE);
+                done.run();
+            }
+        });
+        response.set(result);
+        return result;
+    }
+
+    private StreamCompletion() {
+    }
+}
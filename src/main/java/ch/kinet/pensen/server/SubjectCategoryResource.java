@@ -23,10 +23,9 @@ import ch.kinet.pensen.data.SubjectCategory;
 
 public final class SubjectCategoryResource extends EntityResource<SubjectCategory> {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public SubjectCategoryResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -40,6 +39,11 @@ public final class SubjectCategoryResource extends EntityResource<SubjectCategor
         return Response.jsonArrayTerse(pensenData.streamSubjectCategories());
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return EntityTag.create(pensenData.getVersion(SubjectCategory.class));
+    }
+
     @Override
     protected SubjectCategory loadObject(int id) {
         return pensenData.getSubjectCategoryById(id);
@@ -30,10 +30,9 @@ import java.util.Set;
 public final class SubjectResource extends EntityResource<Subject> {
 
     private static final String QUERY_CROSS_CLASS = "crossClass";
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public SubjectResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -55,12 +54,12 @@ public final class SubjectResource extends EntityResource<Subject> {
     }
 
     @Override
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    protected boolean isGetAllowed(Authorisation authorisation, Subject object, Query query) {
         return authorisation.isAuthenticated();
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
+    protected Response get(Authorisation authorisation, Subject object, Query query) {
         return Response.jsonVerbose(object);
     }
 
@@ -90,12 +89,12 @@ public final class SubjectResource extends EntityResource<Subject> {
     }
 
     @Override
-    protected boolean isUpdateAllowed(Authorisation authorisation, JsonObject data) {
+    protected boolean isUpdateAllowed(Authorisation authorisation, Subject object, JsonObject data) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response update(Authorisation authorisation, JsonObject data) {
+    protected Response update(Authorisation authorisation, Subject object, JsonObject data) {
         boolean archived = data.getBoolean(Subject.JSON_ARCHIVED, false);
         SubjectCategory category = pensenData.getSubjectCategoryById(data.getObjectId(Subject.JSON_CATEGORY, -1));
         if (category == null) {
@@ -157,6 +156,16 @@ public final class SubjectResource extends EntityResource<Subject> {
         return Response.noContent();
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return EntityTag.create(pensenData.getVersion(Subject.class));
+    }
+
+    @Override
+    protected String getEntityTag(Subject object, Query query) {
+        return EntityTag.create(pensenData.getVersion(Subject.class));
+    }
+
     @Override
     protected Subject loadObject(int id) {
         return pensenData.getSubjectById(id);
@@ -23,10 +23,9 @@ import ch.kinet.pensen.data.SubjectType;
 
 public final class SubjectTypeResource extends EntityResource<SubjectType> {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public SubjectTypeResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -40,6 +39,11 @@ public final class SubjectTypeResource extends EntityResource<SubjectType> {
         return Response.jsonArrayTerse(pensenData.streamSubjectTypes());
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return EntityTag.create(pensenData.getVersion(SubjectType.class));
+    }
+
     @Override
     protected SubjectType loadObject(int id) {
         return pensenData.getSubjectTypeById(id);
@@ -21,6 +21,8 @@ import ch.kinet.JsonObject;
 import ch.kinet.Util;
 import ch.kinet.http.Query;
 import ch.kinet.http.Response;
+import ch.kinet.pensen.data.Division;
+import ch.kinet.pensen.data.Employment;
 import ch.kinet.pensen.data.Gender;
 import ch.kinet.pensen.data.PensenData;
 import ch.kinet.pensen.data.SchoolYear;
@@ -30,15 +32,18 @@ import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public final class TeacherResource extends EntityResource<Teacher> {
 
+    private static final String QUERY_DETAIL = "detail";
+    private static final String QUERY_DIVISION = "division";
     private static final String QUERY_EMPLOYED = "employed";
     private static final String QUERY_SCHOOL_YEAR = "schoolYear";
-    private PensenData pensenData;
+    private static final String QUERY_SUBJECT_CATEGORY = "subjectCategory";
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public TeacherResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -49,8 +54,13 @@ public final class TeacherResource extends EntityResource<Teacher> {
 
     @Override
     protected Response list(Authorisation authorisation, Query query) {
+        SubjectCategory department = pensenData.getSubjectCategoryById(query.getInt(QUERY_SUBJECT_CATEGORY, -1));
+        if (department == null && query.hasKey(QUERY_SUBJECT_CATEGORY)) {
+            return Response.notFound();
+        }
+
         if (!query.hasKey(QUERY_SCHOOL_YEAR)) {
-            return Response.jsonArrayVerbose(pensenData.streamTeachers());
+            return listVerbose(query, pensenData.streamTeachers().filter(teacher -> teacher.filter(department)));
         }
 
         SchoolYear schoolYear = pensenData.getSchoolYearById(query.getInt(QUERY_SCHOOL_YEAR, -1));
@@ -59,23 +69,32 @@ public final class TeacherResource extends EntityResource<Teacher> {
         }
 
         boolean active = query.getBoolean(QUERY_EMPLOYED, true);
+        Division division = pensenData.getDivisionById(query.getInt(QUERY_DIVISION, -1));
+        if (division == null && query.hasKey(QUERY_DIVISION)) {
+            return Response.notFound();
+        }
+
         if (active) {
-            return Response.jsonArrayVerbose(pensenData.loadTeachersForSchoolYear(schoolYear));
+            Stream<Teacher> result = division == null ? pensenData.loadTeachersForSchoolYear(schoolYear) :
+                pensenData.loadEmployments(schoolYear, division).map(Employment::getTeacher).distinct().sorted();
+            return listVerbose(query, result.filter(teacher -> teacher.filter(department)));
         }
 
         Set<Teacher> activeTeachers = pensenData.loadTeachersForSchoolYear(schoolYear).collect(Collectors.toSet());
-        return Response.jsonArrayVerbose(pensenData.streamTeachers().filter(teacher -> !activeTeachers.contains(teacher)));
+        return listVerbose(query, pensenData.streamTeachers().filter(
+            teacher -> !activeTeachers.contains(teacher) && teacher.filter(department)
+        ));
     }
 
     @Override
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    protected boolean isGetAllowed(Authorisation authorisation, Teacher object, Query query) {
         return authorisation.isAuthenticated();
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
+    protected Response get(Authorisation authorisation, Teacher object, Query query) {
         JsonObject result = object.toJsonVerbose();
-        for (String detail : query.getStrings("detail")) {
+        for (String detail : query.getStrings(QUERY_DETAIL)) {
             switch (detail) {
                 case "history":
                     result.put("history", JsonArray.createTerse(pensenData.loadTeacherHistory(object)));
@@ -118,12 +137,12 @@ public final class TeacherResource extends EntityResource<Teacher> {
     }
 
     @Override
-    protected boolean isUpdateAllowed(Authorisation authorisation, JsonObject data) {
+    protected boolean isUpdateAllowed(Authorisation authorisation, Teacher object, JsonObject data) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response update(Authorisation authorisation, JsonObject data) {
+    protected Response update(Authorisation authorisation, Teacher object, JsonObject data) {
         boolean archived = data.getBoolean(Teacher.JSON_ARCHIVED, false);
         LocalDate birthday = data.getDate(Teacher.JSON_BIRTHDAY);
         String code = data.getString(Teacher.JSON_CODE);
@@ -210,6 +229,30 @@ public final class TeacherResource extends EntityResource<Teacher> {
         return result;
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        if (!query.hasKey(QUERY_SCHOOL_YEAR)) {
+            return EntityTag.create(pensenData.getVersion(Teacher.class));
+        }
+
+        SchoolYear schoolYear = pensenData.getSchoolYearById(query.getInt(QUERY_SCHOOL_YEAR, -1));
+        if (schoolYear == null) {
+            return null;
+        }
+
+        return EntityTag.create(pensenData.getVersion(Teacher.class), pensenData.getVersion(schoolYear));
+    }
+
+    @Override
+    protected String getEntityTag(Teacher object, Query query) {
+        if (query.hasKey(QUERY_DETAIL)) {
+            // the teacher history depends on the employments of all school years
+            return null;
+        }
+
+        return EntityTag.create(pensenData.getVersion(Teacher.class));
+    }
+
     @Override
     protected Teacher loadObject(int id) {
         return pensenData.getTeacherById(id);
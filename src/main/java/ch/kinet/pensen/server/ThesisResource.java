@@ -19,6 +19,7 @@ package ch.kinet.pensen.server;
 import ch.kinet.JsonObject;
 import ch.kinet.Util;
 import ch.kinet.http.Query;
+import ch.kinet.http.Request;
 import ch.kinet.http.Response;
 import ch.kinet.pensen.data.Employment;
 import ch.kinet.pensen.data.PensenData;
@@ -29,33 +30,35 @@ import ch.kinet.pensen.data.ValueMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-public class ThesisResource extends ObjectResource {
+public class ThesisResource extends ObjectResource<ThesisResource.Target> {
 
     private static final String JSON_ID = "id";
     private static final String JSON_SCHOOL_YEAR = "schoolYear";
     private static final String JSON_TEACHER = "teacher";
     private static final String JSON_THESIS_COUNTS = "thesisCounts";
     private static final String QUERY_SCHOOL_YEAR = "schoolYear";
-    private PensenData pensenData;
-    private SchoolYear schoolYear;
-    private Teacher teacher;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public ThesisResource() {
         pensenData = getData(PensenData.class);
     }
 
     @Override
-    protected boolean isGetAllowed(Authorisation authorisation, Query query) {
+    protected boolean isExpensive(Request<Authorisation> request, String resourceId) {
+        return request.getMethod() == Request.Method.Get && resourceId == null;
+    }
+
+    @Override
+    protected boolean isGetAllowed(Authorisation authorisation, Target target, Query query) {
         return authorisation.isAuthenticated();
     }
 
     @Override
-    protected Response get(Authorisation authorisation, Query query) {
-        JsonObject result = toJson(schoolYear, teacher);
+    protected Response get(Authorisation authorisation, Target target, Query query) {
+        JsonObject result = toJson(target.schoolYear, target.teacher);
         JsonObject counts = JsonObject.create();
         result.put(JSON_THESIS_COUNTS, counts);
-        pensenData.loadThesisEntries(schoolYear, teacher).forEachOrdered(
+        pensenData.loadThesisEntries(target.schoolYear, target.teacher).forEachOrdered(
             entry -> counts.put(String.valueOf(entry.getType().getId()), entry.getCount())
         );
 
@@ -78,27 +81,32 @@ public class ThesisResource extends ObjectResource {
             return Response.notFound();
         }
 
-        Map<Teacher, JsonObject> map = pensenData.loadEmployments(schoolYearFilter, null).collect(
-            Collectors.toMap(Employment::getTeacher, item -> toJson(schoolYearFilter, item.getTeacher()))
-        );
+        String version = EntityTag.create(pensenData.getVersion(schoolYearFilter), pensenData.getReferenceVersion());
+        return JsonStreamResponse.cachedArray("thesis/" + schoolYearFilter.getId(), version, () -> {
+            Map<Teacher, JsonObject> map = pensenData.loadEmployments(schoolYearFilter, null).collect(
+                Collectors.toMap(Employment::getTeacher, item -> toJson(schoolYearFilter, item.getTeacher()))
+            );
 
-        pensenData.loadThesisEntries(schoolYearFilter).forEachOrdered(entry -> {
-            if (map.containsKey(entry.getTeacher())) {
-                String key = String.valueOf(entry.getType().getId());
-                map.get(entry.getTeacher()).getObject(JSON_THESIS_COUNTS).put(key, entry.getCount());
-            }
-        });
+            pensenData.loadThesisEntries(schoolYearFilter).forEachOrdered(entry -> {
+                if (map.containsKey(entry.getTeacher())) {
+                    String key = String.valueOf(entry.getType().getId());
+                    map.get(entry.getTeacher()).getObject(JSON_THESIS_COUNTS).put(key, entry.getCount());
+                }
+            });
 
-        return Response.jsonArrayTerse(map.keySet().stream().sorted().map(teacher -> map.get(teacher)));
+            return map.keySet().stream().sorted().map(teacher -> map.get(teacher));
+        });
     }
 
     @Override
-    protected boolean isUpdateAllowed(Authorisation authorisation, JsonObject data) {
+    protected boolean isUpdateAllowed(Authorisation authorisation, Target target, JsonObject data) {
         return authorisation.isEditAllowed();
     }
 
     @Override
-    protected Response update(Authorisation authorisation, JsonObject data) {
+    protected Response update(Authorisation authorisation, Target target, JsonObject data) {
+        SchoolYear schoolYear = target.schoolYear;
+        Teacher teacher = target.teacher;
         if (schoolYear.isArchived()) {
             return Response.badRequest("Abschlussarbeiten in archivierten Schuljahren können nicht verändert werden.");
         }
@@ -110,19 +118,20 @@ public class ThesisResource extends ObjectResource {
     }
 
     @Override
-    protected Response parseResourceId(String resourceId) {
-        String[] parts = resourceId.split("-");
-        if (parts.length != 2) {
-            return Response.badRequest();
-        }
+    protected boolean isValidResourceId(String resourceId) {
+        return resourceId != null && resourceId.split("-").length == 2;
+    }
 
-        schoolYear = pensenData.getSchoolYearById(Util.parseInt(parts[0], -1));
-        teacher = pensenData.getTeacherById(Util.parseInt(parts[1], -1));
+    @Override
+    protected Target parseResourceId(String resourceId) {
+        String[] parts = resourceId.split("-");
+        SchoolYear schoolYear = pensenData.getSchoolYearById(Util.parseInt(parts[0], -1));
+        Teacher teacher = pensenData.getTeacherById(Util.parseInt(parts[1], -1));
         if (schoolYear == null || teacher == null) {
-            return Response.notFound();
+            return null;
         }
 
-        return null;
+        return new Target(schoolYear, teacher);
     }
 
     private JsonObject toJson(SchoolYear schoolYear, Teacher teacher) {
@@ -141,4 +150,15 @@ public class ThesisResource extends ObjectResource {
         result.append(teacher.getId());
         return result.toString();
     }
+
+    static final class Target {
+
+        private final SchoolYear schoolYear;
+        private final Teacher teacher;
+
+        Target(SchoolYear schoolYear, Teacher teacher) {
+            this.schoolYear = schoolYear;
+            this.teacher = teacher;
+        }
+    }
 }
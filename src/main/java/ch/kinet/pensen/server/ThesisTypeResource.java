@@ -23,10 +23,9 @@ import ch.kinet.pensen.data.ThesisType;
 
 public final class ThesisTypeResource extends EntityResource<ThesisType> {
 
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public ThesisTypeResource() {
         pensenData = getData(PensenData.class);
     }
 
@@ -40,6 +39,11 @@ public final class ThesisTypeResource extends EntityResource<ThesisType> {
         return Response.jsonArrayTerse(pensenData.streamThesisTypes());
     }
 
+    @Override
+    protected String listEntityTag(Query query) {
+        return EntityTag.create(pensenData.getVersion(ThesisType.class));
+    }
+
     @Override
     protected ThesisType loadObject(int id) {
         return null;
@@ -17,6 +17,7 @@
 package ch.kinet.pensen.server;
 
 import ch.kinet.http.Query;
+import ch.kinet.http.Request;
 import ch.kinet.http.Response;
 import ch.kinet.pensen.data.Employment;
 import ch.kinet.pensen.data.PensenData;
@@ -27,18 +28,33 @@ public final class WorkloadResource extends GlobalResource {
 
     private static final String QUERY_SCHOOL_YEAR = "schoolYear";
     private static final String QUERY_TEACHER = "teacher";
-    private PensenData pensenData;
+    private final PensenData pensenData;
 
-    @Override
-    public void initialize() {
+    public WorkloadResource() {
         pensenData = getData(PensenData.class);
     }
 
+    @Override
+    protected boolean isExpensive(Request<Authorisation> request, String resourceId) {
+        // the workloads of all teachers are calculated if no teacher is specified
+        return request.getMethod() == Request.Method.Get && !request.getQuery().hasKey(QUERY_TEACHER);
+    }
+
     @Override
     protected boolean isGetAllowed(Authorisation authorisation, Query query) {
         return authorisation.isAuthenticated();
     }
 
+    @Override
+    protected String getEntityTag(Query query) {
+        SchoolYear schoolYear = pensenData.getSchoolYearById(query.getInt(QUERY_SCHOOL_YEAR, -1));
+        if (schoolYear == null) {
+            return null;
+        }
+
+        return EntityTag.create(pensenData.getVersion(schoolYear), pensenData.getReferenceVersion());
+    }
+
     @Override
     protected Response get(Authorisation authorisation, Query query) {
         SchoolYear schoolYear = pensenData.getSchoolYearById(query.getInt(QUERY_SCHOOL_YEAR, -1));
@@ -48,8 +64,12 @@ public final class WorkloadResource extends GlobalResource {
 
         Teacher teacher = pensenData.getTeacherById(query.getInt(QUERY_TEACHER, -1));
         if (teacher == null) {
-            return Response.jsonArrayTerse(pensenData.loadEmployments(schoolYear, null)
-                .map(employment -> pensenData.loadWorkload(employment))
+            // identical concurrent requests share one calculation of all workloads
+            return JsonStreamResponse.cachedArray(
+                "workload/" + schoolYear.getId(), getEntityTag(query),
+                () -> pensenData.loadEmployments(schoolYear, null).map(
+                    employment -> pensenData.loadWorkload(employment).toJsonTerse()
+                )
             );
         }
         else {
@@ -58,7 +78,7 @@ public final class WorkloadResource extends GlobalResource {
                 return Response.notFound();
             }
 
-            return Response.jsonVerbose(pensenData.loadWorkload(employment));
+            return JsonStreamResponse.objectVerbose(pensenData.loadWorkload(employment));
         }
     }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.kinet.DataManager;
+import ch.kinet.JsonObject;
+import ch.kinet.pensen.data.Account;
+import ch.kinet.pensen.server.Authorisation;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+final class JobTest {
+
+    private static final int RUNS = 50;
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Test
+    void restartedGlobalJobKeepsItsData() throws InterruptedException {
+        LoadingImplementation implementation = new LoadingImplementation();
+        Job job = new Job(1, true, null, implementation, () -> null);
+        for (int i = 0; i < RUNS; ++i) {
+            // the job is started again as soon as it reports its outcome
+            assertTrue(job.start(null, JsonObject.create()));
+            awaitFinished(job);
+            assertNull(job.getException());
+            assertNull(implementation.getErrorMessage());
+        }
+
+        assertEquals(RUNS, implementation.runs.get());
+    }
+
+    private static void awaitFinished(Job job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        long revision = -1;
+        while (!job.isFinished()) {
+            long remaining = deadline - System.currentTimeMillis();
+            assertTrue(remaining > 0, "job has not finished in time");
+            revision = job.awaitChange(revision, remaining);
+        }
+    }
+
+    /**
+     * Loads data on the job thread and fails if the data is gone while it is running. Releasing the data takes some
+     * time, so that a restart overlapping with the release of the previous run is detected.
+     */
+    private static final class LoadingImplementation extends JobImplementation {
+
+        private static final int STEPS = 3;
+        private final AtomicInteger runs = new AtomicInteger();
+        private volatile Object data;
+
+        LoadingImplementation() {
+            super("Test");
+        }
+
+        @Override
+        public long getStepCount() {
+            return STEPS;
+        }
+
+        @Override
+        public void initialize(DataManager dataManager) {
+        }
+
+        @Override
+        public boolean isAllowed(Authorisation authorisation) {
+            return true;
+        }
+
+        @Override
+        public void loadData() {
+            data = new Object();
+        }
+
+        @Override
+        public boolean parseData(JsonObject data) {
+            return true;
+        }
+
+        @Override
+        public void run(Account creator, JobCallback callback) {
+            for (int i = 0; i < STEPS; ++i) {
+                if (data == null) {
+                    throw new IllegalStateException("data has been released while the job is running");
+                }
+
+                callback.step();
+                sleep(1);
+            }
+
+            runs.incrementAndGet();
+        }
+
+        @Override
+        protected void releaseData() {
+            sleep(5);
+            data = null;
+        }
+
+        private static void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
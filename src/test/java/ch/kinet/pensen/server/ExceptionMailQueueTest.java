@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2026 by Sebastian Forster, Stefan Rothe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY); without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ch.kinet.pensen.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.kinet.Mail;
+import ch.kinet.Mailer;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+final class ExceptionMailQueueTest {
+
+    private static final long INTERVAL_MILLIS = 1000;
+    private static final int MAX_PENDING = 50;
+    private static final long TIMEOUT_MILLIS = 5000;
+    private final List<Throwable> logged = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+
+    @Test
+    void sameFingerprintIsReportedOnce() throws InterruptedException {
+        ExceptionMailQueue queue = createQueue(1);
+        // the first mail uses up the interval, so the following exceptions are collected
+        queue.submit(exception("first", 1));
+        awaitMail();
+        for (int i = 0; i < 3; ++i) {
+            queue.submit(exception("repeated", 1));
+        }
+
+        String body = awaitMail();
+        assertTrue(body.startsWith("3x zwischen "), body);
+        assertTrue(body.contains("repeated"), body);
+        assertNull(sent.poll(INTERVAL_MILLIS / 2, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void exceptionsBeyondPendingLimitAreCounted() throws InterruptedException {
+        ExceptionMailQueue queue = createQueue(1);
+        queue.submit(exception("first", 1));
+        awaitMail();
+        for (int i = 0; i < MAX_PENDING + 3; ++i) {
+            queue.submit(exception("distinct", i));
+        }
+
+        String body = awaitMail();
+        assertTrue(body.startsWith(MAX_PENDING + " verschiedene Fehler, 3 weitere Fehler nicht aufgeführt"), body);
+    }
+
+    @Test
+    void mailsPerIntervalAreLimited() throws InterruptedException {
+        ExceptionMailQueue queue = createQueue(2);
+        long start = System.currentTimeMillis();
+        queue.submit(exception("first", 1));
+        awaitMail();
+        queue.submit(exception("second", 1));
+        awaitMail();
+        queue.submit(exception("third", 1));
+        // the third mail waits for the next interval
+        assertNull(sent.poll(INTERVAL_MILLIS / 2, TimeUnit.MILLISECONDS));
+        String body = awaitMail();
+        assertTrue(body.contains("third"), body);
+        assertTrue(System.currentTimeMillis() - start >= INTERVAL_MILLIS);
+    }
+
+    @Test
+    void failedMailIsLogged() throws InterruptedException {
+        RuntimeException failure = new RuntimeException("mail server down");
+        ExceptionMailQueue queue = new ExceptionMailQueue(() -> new Mailer() {
+            @Override
+            public void sendMail(Mail mail) {
+                throw failure;
+            }
+        }, "support@example.com", 1, INTERVAL_MILLIS, logged::add);
+        queue.submit(exception("first", 1));
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (logged.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, logged.size());
+        assertEquals(failure, logged.get(0).getCause());
+    }
+
+    private ExceptionMailQueue createQueue(int maxMails) {
+        return new ExceptionMailQueue(() -> new Mailer() {
+            @Override
+            public void sendMail(Mail mail) {
+                sent.add(mail.getBody());
+            }
+        }, "support@example.com", maxMails, INTERVAL_MILLIS, logged::add);
+    }
+
+    private String awaitMail() throws InterruptedException {
+        String result = sent.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        assertNotNull(result);
+        assertTrue(logged.isEmpty());
+        return result;
+    }
+
+    /**
+     * Creates an exception whose fingerprint depends only on the specified method name and line.
+     */
+    private static RuntimeException exception(String method, int line) {
+        RuntimeException result = new RuntimeException(method);
+        result.setStackTrace(new StackTraceElement[] {
+            new StackTraceElement(ExceptionMailQueueTest.class.getName(), method, "ExceptionMailQueueTest.java", line)
+        });
+        return result;
+    }
+}